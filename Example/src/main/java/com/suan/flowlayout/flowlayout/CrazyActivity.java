@@ -51,6 +51,7 @@ public class CrazyActivity extends Activity {
 
     mFlowLayout = (FlowLayout) findViewById(R.id.flow_layout);
     mScrollView = (ScrollView) findViewById(R.id.scroll_view);
+    mFlowLayout.setReflowAnimationEnabled(true);
 
     for (int i = 0; i < 400; i++) {
       addChild(i);
@@ -0,0 +1,81 @@
+package com.suan.flowlayout;
+
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+/**
+ * {@link FlowLineBreaker} needs no Android class ,so it is checked here on a plain JVM ,it is
+ * checked against FlowLayout itself by FlowLayoutFuzzTest of Library
+ */
+public class FlowLineBreakerTest extends TestCase {
+
+  private static final int LINE_NUM_INVALID = Integer.MIN_VALUE;
+
+  public void testOverflowedLineHasNoPadding() {
+    FlowLineBreaker.Items items = new FlowLineBreaker.Items(4);
+    for (int i = 0; i < 3; i++) {
+      items.add(FlowLineBreaker.TYPE_NORMAL, 40, 20, 0, 0, 0, 0, LINE_NUM_INVALID, 0);
+    }
+    FlowLineBreaker.Lines lines = FlowLineBreaker.breakLines(items, 10, 100);
+    assertEquals(2, lines.count);
+    assertEquals(2, lines.end[0]);
+    assertEquals(10, lines.extraSpacing[0]);
+    assertEquals(FlowLineBreaker.BREAK_OVERFLOW, lines.reason[1]);
+    assertEquals(3, lines.end[1]);
+    // padding is not added when an item overflows into a new line
+    assertEquals(40, lines.usedWidth[1]);
+    assertEquals(20, lines.height[1]);
+  }
+
+  public void testParallel() {
+    Random random = new Random(29);
+    for (int round = 0; round < 5; round++) {
+      FlowLineBreaker.Items items = new FlowLineBreaker.Items(16);
+      int lineNum = LINE_NUM_INVALID;
+      int count = 100000 + random.nextInt(200000);
+      for (int i = 0; i < count; i++) {
+        if (random.nextInt(1000) == 0) {
+          lineNum = random.nextInt(4);
+        }
+        int width = random.nextInt(10) == 0 ? 0 : random.nextInt(500);
+        int type = random.nextInt(100) == 0 ? FlowLineBreaker.TYPE_MATCH_PARENT
+            : random.nextInt(20) == 0 ? FlowLineBreaker.TYPE_WEIGHT : FlowLineBreaker.TYPE_NORMAL;
+        items.add(type, width, random.nextInt(200), random.nextInt(3) * 10, random.nextInt(3) * 10,
+            random.nextInt(2) * 8, random.nextInt(2) * 8, lineNum, random.nextInt(3));
+      }
+      assertSameLinesInParallel(items, random.nextInt(40), 300 + random.nextInt(1200));
+    }
+  }
+
+  /**
+   * items of the same width break every few items wherever a chunk starts
+   */
+  public void testParallelUniform() {
+    FlowLineBreaker.Items items = new FlowLineBreaker.Items(1000000);
+    for (int i = 0; i < 1000000; i++) {
+      items.add(FlowLineBreaker.TYPE_NORMAL, 97, 40, 0, 0, 8, 8, LINE_NUM_INVALID, 0);
+    }
+    assertSameLinesInParallel(items, 0, 1000);
+    assertSameLinesInParallel(items, 16, 1000);
+  }
+
+  private static void assertSameLinesInParallel(FlowLineBreaker.Items items, int paddingLeft,
+      int availableWidth) {
+    FlowLineBreaker.Lines expected =
+        FlowLineBreaker.breakLines(items, paddingLeft, availableWidth);
+    FlowLineBreaker.Lines actual =
+        FlowLineBreaker.breakLinesParallel(items, paddingLeft, availableWidth, 4);
+    assertEquals("line count", expected.count, actual.count);
+    assertEquals("max width", expected.maxWidth, actual.maxWidth);
+    for (int line = 0; line < expected.count; line++) {
+      assertEquals("end of line " + line, expected.end[line], actual.end[line]);
+      assertEquals("reason of line " + line, expected.reason[line], actual.reason[line]);
+      assertEquals("extra of line " + line, expected.extraSpacing[line],
+          actual.extraSpacing[line]);
+      assertEquals("used width of line " + line, expected.usedWidth[line],
+          actual.usedWidth[line]);
+      assertEquals("height of line " + line, expected.height[line], actual.height[line]);
+    }
+  }
+}
@@ -0,0 +1,163 @@
+package com.wefika.flowlayout;
+
+import android.content.ComponentCallbacks;
+import android.content.Context;
+import android.content.ContextWrapper;
+import android.content.res.Configuration;
+import android.os.Build;
+import android.test.AndroidTestCase;
+import android.widget.TextView;
+
+import com.suan.flowlayout.ChipHelper;
+import com.suan.flowlayout.ChipWidthCache;
+import com.suan.flowlayout.FlowLayout;
+
+public class ChipWidthCacheTest extends AndroidTestCase {
+
+  public void testHitAndMiss() {
+    ChipWidthCache cache = new ChipWidthCache(getContext(), ChipWidthCache.DEFAULT_MAX_BYTES);
+    try {
+      assertEquals(-1, cache.get("tag", 14f, null, 1f, 20));
+      cache.put("tag", 14f, null, 1f, 20, 120);
+      // lookup by any CharSequence with same content
+      assertEquals(120, cache.get(new StringBuilder("tag"), 14f, null, 1f, 20));
+      assertEquals(-1, cache.get("tag", 15f, null, 1f, 20));
+      assertEquals(-1, cache.get("tag", 14f, null, 1f, 22));
+      assertEquals(1, cache.hitCount());
+      assertEquals(3, cache.missCount());
+      assertEquals(0.25f, cache.hitRate(), 0.001f);
+    } finally {
+      cache.release();
+    }
+  }
+
+  public void testMemoryLimit() {
+    ChipWidthCache cache = new ChipWidthCache(getContext(), 1024);
+    try {
+      for (int i = 0; i < 100; i++) {
+        cache.put("tag number " + i, 14f, null, 1f, 20, i);
+      }
+      assertTrue(cache.size() <= 1024);
+      assertTrue(cache.evictionCount() > 0);
+      assertEquals(99, cache.get("tag number 99", 14f, null, 1f, 20));
+    } finally {
+      cache.release();
+    }
+  }
+
+  public void testInvalidate() {
+    ChipWidthCache cache = new ChipWidthCache(getContext(), ChipWidthCache.DEFAULT_MAX_BYTES);
+    try {
+      cache.put("tag", 14f, null, 1f, 20, 120);
+      cache.invalidate();
+      assertEquals(-1, cache.get("tag", 14f, null, 1f, 20));
+      assertEquals(0, cache.size());
+      assertEquals(1, cache.invalidationCount());
+    } finally {
+      cache.release();
+    }
+  }
+
+  public void testBindFixesWidth() {
+    ChipWidthCache cache = ChipWidthCache.getInstance(getContext());
+    TextView chip = new TextView(getContext());
+    ChipHelper.bind(chip, "flow layout chip");
+    int width = chip.getLayoutParams().width;
+    assertTrue(width > 0);
+
+    int hitCount = cache.hitCount();
+    TextView other = new TextView(getContext());
+    ChipHelper.bind(other, "flow layout chip");
+    assertEquals(width, other.getLayoutParams().width);
+    assertEquals(hitCount + 1, cache.hitCount());
+  }
+
+  public void testBindMeasuresLikeTextView() {
+    TextView caps = new TextView(getContext());
+    caps.setAllCaps(true);
+    ChipHelper.bind(caps, "flow layout chip");
+    TextView upper = new TextView(getContext());
+    ChipHelper.bind(upper, "FLOW LAYOUT CHIP");
+    assertEquals("transformed text is measured", upper.getLayoutParams().width,
+        caps.getLayoutParams().width);
+
+    if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+      TextView narrow = new TextView(getContext());
+      narrow.setMaxWidth(20);
+      ChipHelper.bind(narrow, "flow layout chip");
+      assertEquals(20, narrow.getLayoutParams().width);
+      TextView wide = new TextView(getContext());
+      wide.setMinWidth(2000);
+      ChipHelper.bind(wide, "flow layout chip");
+      assertEquals(2000, wide.getLayoutParams().width);
+    }
+  }
+
+  public void testConfigurationChange() {
+    CallbackContext context = new CallbackContext(getContext());
+    ChipWidthCache cache = new ChipWidthCache(context, ChipWidthCache.DEFAULT_MAX_BYTES);
+    try {
+      assertNotNull(context.callbacks);
+      Configuration configuration =
+          new Configuration(getContext().getResources().getConfiguration());
+      cache.put("tag", 14f, null, 1f, 20, 120);
+      context.callbacks.onConfigurationChanged(configuration);
+      assertEquals("same configuration keeps widths", 120, cache.get("tag", 14f, null, 1f, 20));
+
+      configuration.fontScale *= 2;
+      context.callbacks.onConfigurationChanged(configuration);
+      assertEquals(1, cache.invalidationCount());
+      assertEquals(-1, cache.get("tag", 14f, null, 1f, 20));
+
+      cache.put("tag", 14f, null, 1f, 20, 120);
+      configuration = new Configuration(configuration);
+      configuration.locale = configuration.locale == null
+          || !"ja".equals(configuration.locale.getLanguage())
+          ? java.util.Locale.JAPANESE : java.util.Locale.ENGLISH;
+      context.callbacks.onConfigurationChanged(configuration);
+      assertEquals(2, cache.invalidationCount());
+      assertEquals(0, cache.size());
+    } finally {
+      cache.release();
+    }
+  }
+
+  public void testRebindLaidOutChip() {
+    FlowLayout layout = new FlowLayout(getContext());
+    TextView chip = new TextView(getContext());
+    ChipHelper.bind(chip, "chip");
+    layout.addView(chip);
+    Scenarios.measure(layout);
+    int width = chip.getMeasuredWidth();
+    assertEquals(chip.getLayoutParams().width, width);
+
+    ChipHelper.bind(chip, "much longer text of flow layout chip");
+    assertTrue(chip.getLayoutParams().width > width);
+    assertTrue("rebound chip of other width requests layout", layout.isLayoutRequested());
+    Scenarios.measure(layout);
+    assertEquals(chip.getLayoutParams().width, chip.getMeasuredWidth());
+    assertEquals(chip.getLayoutParams().width, chip.getWidth());
+  }
+
+  /**
+   * keeps component callbacks registered through it ,so a test can change configuration
+   */
+  private static class CallbackContext extends ContextWrapper {
+
+    ComponentCallbacks callbacks;
+
+    CallbackContext(Context base) {
+      super(base);
+    }
+
+    @Override
+    public void registerComponentCallbacks(ComponentCallbacks callbacks) {
+      this.callbacks = callbacks;
+    }
+
+    @Override
+    public void unregisterComponentCallbacks(ComponentCallbacks callbacks) {
+      this.callbacks = null;
+    }
+  }
+}
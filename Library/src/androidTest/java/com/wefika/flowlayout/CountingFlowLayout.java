@@ -0,0 +1,43 @@
+package com.wefika.flowlayout;
+
+import android.content.Context;
+
+import com.suan.flowlayout.FlowLayout;
+
+/**
+ * FlowLayout counting layout requests and passes
+ */
+public class CountingFlowLayout extends FlowLayout {
+
+  public int requestLayoutCount;
+  public int measureCount;
+  public int layoutCount;
+
+  public CountingFlowLayout(Context context) {
+    super(context);
+  }
+
+  @Override
+  public void requestLayout() {
+    requestLayoutCount++;
+    super.requestLayout();
+  }
+
+  @Override
+  protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+    measureCount++;
+    super.onMeasure(widthMeasureSpec, heightMeasureSpec);
+  }
+
+  @Override
+  protected void onLayout(boolean changed, int l, int t, int r, int b) {
+    layoutCount++;
+    super.onLayout(changed, l, t, r, b);
+  }
+
+  public void resetCounts() {
+    requestLayoutCount = 0;
+    measureCount = 0;
+    layoutCount = 0;
+  }
+}
@@ -0,0 +1,133 @@
+package com.wefika.flowlayout;
+
+import android.content.Context;
+import android.test.AndroidTestCase;
+import android.view.View;
+
+import com.suan.flowlayout.FlowDragHelper;
+import com.suan.flowlayout.FlowLayout;
+import com.suan.flowlayout.FlowLayout.LayoutParam;
+
+public class FlowDragHelperTest extends AndroidTestCase {
+
+  private static final int CHILD_COUNT = 30;
+  private static final int TOUCH_OFFSET = 10;
+
+  public void testDragAcrossLines() {
+    CountingFlowLayout layout = chips(getContext());
+    RecordingReflowAnimator animator = new RecordingReflowAnimator();
+    layout.setReflowAnimator(animator);
+    RecordingListener listener = new RecordingListener();
+    FlowDragHelper helper = new FlowDragHelper(layout);
+    helper.setOnReorderListener(listener);
+    View dragged = layout.getChildAt(1);
+    assertTrue(helper.startDrag(dragged, dragged.getLeft() + TOUCH_OFFSET,
+        dragged.getTop() + TOUCH_OFFSET));
+    assertTrue(helper.isDragging());
+
+    // hover over right half of next child ,one slot per step
+    for (int step = 0; step < 12; step++) {
+      int from = layout.indexOfChild(dragged);
+      View next = layout.getChildAt(from + 1);
+      int x = next.getLeft() + next.getWidth() * 3 / 4;
+      int y = next.getTop() + next.getHeight() / 2;
+      helper.dragTo(x, y);
+      assertEquals("moved one slot", from + 1, layout.indexOfChild(dragged));
+
+      resetLayoutCounts(layout);
+      Scenarios.measure(layout);
+      assertTrue("only lines between old and new slot are flowed",
+          layout.getReflowedLineEnd() - layout.getFirstReflowedLine() <= 2);
+      int start = layout.getLineStart(layout.getFirstReflowedLine());
+      int end = layout.getLineEnd(layout.getReflowedLineEnd() - 1);
+      for (int i = 0; i < layout.getChildCount(); i++) {
+        if (i < start || i >= end) {
+          assertEquals("child " + i + " of a kept line laid out", 0,
+              ((TestChildView) layout.getChildAt(i)).layoutCount);
+        }
+      }
+      ReferenceFlowLayout reference = new ReferenceFlowLayout(layout);
+      reference.measure(Scenarios.WIDTH_MEASURE_SPEC, Scenarios.HEIGHT_MEASURE_SPEC);
+      FlowLayoutTest.assertPositions(reference, layout);
+      assertEquals("dragged child follows the finger", x - TOUCH_OFFSET,
+          (int) (dragged.getLeft() + dragged.getTranslationX()));
+      assertEquals("dragged child follows the finger", y - TOUCH_OFFSET,
+          (int) (dragged.getTop() + dragged.getTranslationY()));
+    }
+    for (int i = 0; i < layout.getChildCount(); i++) {
+      assertEquals("child " + i + " measured again", 0,
+          ((TestChildView) layout.getChildAt(i)).measureCount);
+    }
+
+    helper.endDrag();
+    assertFalse(helper.isDragging());
+    assertSame(dragged, listener.child);
+    assertEquals(1, listener.from);
+    assertEquals(13, listener.to);
+    assertTrue("dropped child slides to its slot", animator.animated.contains(dragged));
+    assertSame("animator of the app is kept", animator, layout.getReflowAnimator());
+    animator.endAnimations();
+    assertEquals(0f, dragged.getTranslationX(), 0f);
+    assertEquals(0f, dragged.getTranslationY(), 0f);
+  }
+
+  public void testCancel() {
+    CountingFlowLayout layout = chips(getContext());
+    layout.setReflowAnimator(new RecordingReflowAnimator());
+    RecordingListener listener = new RecordingListener();
+    FlowDragHelper helper = new FlowDragHelper(layout);
+    helper.setOnReorderListener(listener);
+    View dragged = layout.getChildAt(4);
+    helper.startDrag(dragged, dragged.getLeft(), dragged.getTop());
+    View target = layout.getChildAt(20);
+    helper.dragTo(target.getLeft() + 1, target.getTop() + 1);
+    assertEquals(19, layout.indexOfChild(dragged));
+    Scenarios.measure(layout);
+
+    helper.cancelDrag();
+    assertEquals(4, layout.indexOfChild(dragged));
+    assertEquals(4, listener.from);
+    assertEquals(4, listener.to);
+    Scenarios.measure(layout);
+    ReferenceFlowLayout reference = new ReferenceFlowLayout(layout);
+    reference.measure(Scenarios.WIDTH_MEASURE_SPEC, Scenarios.HEIGHT_MEASURE_SPEC);
+    FlowLayoutTest.assertPositions(reference, layout);
+  }
+
+  /**
+   * three chips a line
+   */
+  private static CountingFlowLayout chips(Context context) {
+    CountingFlowLayout layout = new CountingFlowLayout(context);
+    layout.horizontalSpacing = 20;
+    layout.verticalSpacing = 20;
+    for (int i = 0; i < CHILD_COUNT; i++) {
+      Scenarios.addChild(layout, 300, 150, LayoutParam.LINE_NUM_INVALID, 0);
+    }
+    Scenarios.measure(layout);
+    for (int i = 0; i < layout.getChildCount(); i++) {
+      ((TestChildView) layout.getChildAt(i)).measureCount = 0;
+    }
+    return layout;
+  }
+
+  private static void resetLayoutCounts(FlowLayout layout) {
+    for (int i = 0; i < layout.getChildCount(); i++) {
+      ((TestChildView) layout.getChildAt(i)).layoutCount = 0;
+    }
+  }
+
+  private static class RecordingListener implements FlowDragHelper.OnReorderListener {
+
+    View child;
+    int from = -1;
+    int to = -1;
+
+    @Override
+    public void onReorder(View child, int from, int to) {
+      this.child = child;
+      this.from = from;
+      this.to = to;
+    }
+  }
+}
@@ -0,0 +1,212 @@
+package com.wefika.flowlayout;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import android.test.AndroidTestCase;
+import android.view.View;
+
+import com.suan.flowlayout.FlowLayout;
+import com.suan.flowlayout.FlowLayout.LayoutParam;
+
+public class FlowGroupTest extends AndroidTestCase {
+
+  public void testQueries() {
+    CountingFlowLayout layout = Scenarios.normalFlow(getContext());
+    Scenarios.measure(layout);
+    assertEquals(3, layout.getGroupCount());
+    assertEquals(1, layout.getGroupStart(1));
+    assertEquals(31, layout.getGroupEnd(1));
+    assertEquals(61, layout.getGroupEnd(2));
+    assertEquals(2, layout.findGroupByLineNum(2));
+    assertEquals(-1, layout.findGroupByLineNum(7));
+
+    int lineCount = 0;
+    for (int group = 0; group < layout.getGroupCount(); group++) {
+      assertEquals("lines of groups follow each other", lineCount,
+          layout.getGroupFirstLine(group));
+      lineCount += layout.getGroupLineCount(group);
+      for (int i = layout.getGroupStart(group); i < layout.getGroupEnd(group); i++) {
+        View child = layout.getChildAt(i);
+        assertTrue(child.getTop() >= layout.getGroupTop(group));
+        assertTrue(child.getBottom() <= layout.getGroupBottom(group));
+        assertTrue(child.getRight() <= layout.getGroupWidth(group));
+      }
+    }
+    assertEquals(layout.getLineCount(), lineCount);
+  }
+
+  public void testHide() {
+    CountingFlowLayout layout = Scenarios.normalFlow(getContext());
+    Scenarios.measure(layout);
+    int[] lefts = new int[layout.getChildCount()];
+    int[] tops = new int[layout.getChildCount()];
+    for (int i = 0; i < layout.getChildCount(); i++) {
+      lefts[i] = layout.getChildAt(i).getLeft();
+      tops[i] = layout.getChildAt(i).getTop();
+    }
+    int groupHeight = layout.getGroupBottom(1) - layout.getGroupTop(1);
+    resetMeasureCounts(layout);
+
+    layout.setGroupHidden(1, true);
+    Scenarios.measure(layout);
+    assertTrue(layout.isGroupHidden(1));
+    assertEquals(View.GONE, layout.getChildAt(1).getVisibility());
+    assertEquals("hidden group takes no place", layout.getGroupBottom(0),
+        layout.getGroupBottom(1));
+    assertEquals("only hidden group is flowed", layout.getGroupFirstLine(2),
+        layout.getReflowedLineEnd());
+    for (int i = layout.getGroupStart(2); i < layout.getChildCount(); i++) {
+      View child = layout.getChildAt(i);
+      assertEquals(lefts[i], child.getLeft());
+      assertEquals("group after hidden one is moved up", tops[i] - groupHeight, child.getTop());
+    }
+
+    // a child of next group changing after the group is shown is reported to layout
+    TestChildView changed = (TestChildView) layout.getChildAt(layout.getGroupStart(2));
+    layout.setGroupHidden(1, false);
+    ((LayoutParam) changed.getLayoutParams()).width = LayoutParam.WRAP_CONTENT;
+    changed.setIntrinsicSize(900, 150);
+    layout.requestChildLayout(changed);
+    Scenarios.measure(layout);
+    assertEquals(900, changed.getMeasuredWidth());
+    assertSameAsFullFlow(layout);
+    layout.setGroupHidden(1, true);
+    changed.setIntrinsicSize(300, 150);
+    layout.requestChildLayout(changed);
+    Scenarios.measure(layout);
+    assertSameAsFullFlow(layout);
+    resetMeasureCounts(layout);
+
+    layout.setGroupHidden(1, false);
+    Scenarios.measure(layout);
+    assertFalse(layout.isGroupHidden(1));
+    assertEquals(layout.getGroupFirstLine(2), layout.getReflowedLineEnd());
+    for (int i = 0; i < layout.getChildCount(); i++) {
+      View child = layout.getChildAt(i);
+      assertEquals(View.VISIBLE, child.getVisibility());
+      assertEquals(lefts[i], child.getLeft());
+      assertEquals(tops[i], child.getTop());
+      if (i >= layout.getGroupEnd(1)) {
+        assertEquals("child " + i + " measured again", 0, ((TestChildView) child).measureCount);
+      }
+    }
+  }
+
+  public void testReplace() {
+    CountingFlowLayout layout = Scenarios.normalFlow(getContext());
+    Scenarios.measure(layout);
+    resetMeasureCounts(layout);
+    List<View> kept = new ArrayList<View>();
+    for (int i = layout.getGroupStart(2); i < layout.getGroupEnd(2); i++) {
+      kept.add(layout.getChildAt(i));
+    }
+
+    List<View> children = new ArrayList<View>();
+    for (int i = 0; i < 4; i++) {
+      TestChildView child = new TestChildView(getContext(), 300, 150);
+      child.setLayoutParams(new LayoutParam(LayoutParam.WRAP_CONTENT, LayoutParam.WRAP_CONTENT));
+      children.add(child);
+    }
+    layout.replaceGroup(1, children);
+    Scenarios.measure(layout);
+    assertEquals(3, layout.getGroupCount());
+    assertEquals(5, layout.getGroupEnd(1));
+    assertEquals(1, layout.getGroupLineNum(1));
+    assertEquals("only replaced group is flowed", layout.getGroupFirstLine(2),
+        layout.getReflowedLineEnd());
+    ReferenceFlowLayout reference = new ReferenceFlowLayout(layout);
+    reference.measure(Scenarios.WIDTH_MEASURE_SPEC, Scenarios.HEIGHT_MEASURE_SPEC);
+    FlowLayoutTest.assertPositions(reference, layout);
+    for (View child : kept) {
+      assertEquals("child of next group measured again", 0, ((TestChildView) child).measureCount);
+    }
+  }
+
+  public void testReplaceWithChangedChild() {
+    CountingFlowLayout layout = Scenarios.normalFlow(getContext());
+    Scenarios.measure(layout);
+    List<View> children = new ArrayList<View>();
+    children.add(new TestChildView(getContext(), 300, 150));
+    layout.replaceGroup(1, children);
+    // a child of next group changing in the same frame is reported to layout
+    TestChildView changed = (TestChildView) layout.getChildAt(layout.getChildCount() - 1);
+    ((LayoutParam) changed.getLayoutParams()).height = LayoutParam.WRAP_CONTENT;
+    changed.setIntrinsicSize(300, 600);
+    layout.requestChildLayout(changed);
+    Scenarios.measure(layout);
+    assertEquals(600, changed.getMeasuredHeight());
+    ReferenceFlowLayout reference = new ReferenceFlowLayout(layout);
+    reference.measure(Scenarios.WIDTH_MEASURE_SPEC, Scenarios.HEIGHT_MEASURE_SPEC);
+    FlowLayoutTest.assertPositions(reference, layout);
+  }
+
+  public void testChangesInOneFrame() {
+    CountingFlowLayout layout = Scenarios.normalFlow(getContext());
+    assertEquals("groups are known before first measure", 3, layout.getGroupCount());
+    assertEquals(2, layout.findGroupByLineNum(2));
+    Scenarios.measure(layout);
+
+    layout.removeView(layout.getChildAt(0));
+    assertEquals("groups follow removed child", 2, layout.getGroupCount());
+    assertEquals(30, layout.getGroupStart(1));
+    assertEquals(1, layout.findGroupByLineNum(2));
+    layout.setGroupHidden(1, true);
+    List<View> children = new ArrayList<View>();
+    for (int i = 0; i < 4; i++) {
+      children.add(new TestChildView(getContext(), 300, 150));
+    }
+    layout.replaceGroup(0, children);
+    assertEquals(4, layout.getGroupEnd(0));
+    assertTrue(layout.isGroupHidden(1));
+    Scenarios.measure(layout);
+    assertEquals(2, layout.getGroupCount());
+    assertEquals("hidden group takes no place", layout.getGroupBottom(0),
+        layout.getGroupBottom(1));
+    assertSameAsFullFlow(layout);
+
+    // two changes of groups before one measure
+    layout.setGroupHidden(1, false);
+    layout.setGroupHidden(0, true);
+    Scenarios.measure(layout);
+    assertTrue(layout.isGroupHidden(0));
+    assertFalse(layout.isGroupHidden(1));
+    assertSameAsFullFlow(layout);
+
+    layout.setOrientation(FlowLayout.ORIENTATION_VERTICAL);
+    Scenarios.measure(layout);
+    assertEquals(0, layout.getGroupCount());
+    assertEquals(-1, layout.findGroupByLineNum(2));
+    try {
+      layout.getGroupTop(0);
+      fail("vertical orientation has no group lines");
+    } catch (IllegalStateException expected) {
+    }
+  }
+
+  /**
+   * positions and size are the same when every child is flowed again
+   */
+  private static void assertSameAsFullFlow(FlowLayout layout) {
+    int[] lefts = new int[layout.getChildCount()];
+    int[] tops = new int[layout.getChildCount()];
+    for (int i = 0; i < layout.getChildCount(); i++) {
+      lefts[i] = layout.getChildAt(i).getLeft();
+      tops[i] = layout.getChildAt(i).getTop();
+    }
+    int height = layout.getMeasuredHeight();
+    layout.requestLayout();
+    Scenarios.measure(layout);
+    assertEquals("measured height", layout.getMeasuredHeight(), height);
+    for (int i = 0; i < layout.getChildCount(); i++) {
+      assertEquals("left of child " + i, layout.getChildAt(i).getLeft(), lefts[i]);
+      assertEquals("top of child " + i, layout.getChildAt(i).getTop(), tops[i]);
+    }
+  }
+
+  private static void resetMeasureCounts(FlowLayout layout) {
+    for (int i = 0; i < layout.getChildCount(); i++) {
+      ((TestChildView) layout.getChildAt(i)).measureCount = 0;
+    }
+  }
+}
@@ -0,0 +1,401 @@
+package com.wefika.flowlayout;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import android.content.Context;
+import android.test.AndroidTestCase;
+import android.view.View;
+import android.view.View.MeasureSpec;
+import android.view.ViewGroup.LayoutParams;
+
+import com.suan.flowlayout.FlowLayout;
+import com.suan.flowlayout.FlowLayout.LayoutParam;
+import com.suan.flowlayout.FlowLineBreaker;
+
+/**
+ * differential fuzzing ,every path of {@link FlowLayout} and {@link FlowLineBreaker} is checked
+ * against {@link ReferenceFlowLayout} on random children ,parallel line breaking needs no View and
+ * is checked on a plain JVM by FlowLineBreakerTest of JvmTest
+ */
+public class FlowLayoutFuzzTest extends AndroidTestCase {
+
+  private static final int ROUNDS = 300;
+  private static final int SPACING_NONE = -1;
+
+  public void testHorizontal() {
+    Random random = new Random(26);
+    for (int round = 0; round < ROUNDS; round++) {
+      FlowLayout layout = randomLayout(getContext(), random, FlowLayout.ORIENTATION_HORIZONTAL);
+      int widthMeasureSpec = randomMeasureSpec(random);
+      int heightMeasureSpec = randomMeasureSpec(random);
+      assertSameAsReference(layout, widthMeasureSpec, heightMeasureSpec);
+    }
+  }
+
+  public void testVertical() {
+    Random random = new Random(27);
+    for (int round = 0; round < ROUNDS; round++) {
+      FlowLayout layout = randomLayout(getContext(), random, FlowLayout.ORIENTATION_VERTICAL);
+      int widthMeasureSpec = randomMeasureSpec(random);
+      int heightMeasureSpec = randomMeasureSpec(random);
+      assertSameAsReference(layout, widthMeasureSpec, heightMeasureSpec);
+    }
+  }
+
+  public void testAppend() {
+    Random random = new Random(32);
+    for (int round = 0; round < ROUNDS / 10; round++) {
+      FlowLayout layout = randomLayout(getContext(), random, FlowLayout.ORIENTATION_HORIZONTAL);
+      int widthMeasureSpec = randomMeasureSpec(random);
+      int heightMeasureSpec = randomMeasureSpec(random);
+      measure(layout, widthMeasureSpec, heightMeasureSpec);
+      int lineNum = LayoutParam.LINE_NUM_INVALID;
+      for (int append = 0; append < 10; append++) {
+        int lineCount = layout.getLineCount();
+        List<View> children = new ArrayList<View>();
+        for (int i = random.nextInt(10); i >= 0; i--) {
+          if (random.nextInt(8) == 0) {
+            lineNum = random.nextInt(5);
+          }
+          children.add(randomChild(layout, random, FlowLayout.ORIENTATION_HORIZONTAL, lineNum));
+        }
+        if (random.nextBoolean()) {
+          layout.appendViews(children);
+        } else {
+          for (View child : children) {
+            layout.addView(child);
+          }
+        }
+        if (random.nextInt(4) == 0) {
+          layout.setGravity(random.nextBoolean() ? FlowLayout.GRAVITY_CENTER
+              : FlowLayout.GRAVITY_RIGHT);
+        }
+        // an existing child changing after the append is reported like a rebound chip
+        int changed = random.nextInt(4) == 0 ? resizeRandomChild(layout, random,
+            layout.getChildCount() - children.size()) : -1;
+        int changedLine = changed < 0 ? lineCount - 1 : getLineOf(layout, changed);
+        measure(layout, widthMeasureSpec, heightMeasureSpec);
+        if (changed < 0) {
+          assertEquals("reflowed from last line", lineCount - 1, layout.getFirstReflowedLine());
+        } else {
+          assertTrue("reflowed from line of changed child",
+              layout.getFirstReflowedLine() <= Math.min(lineCount - 1, changedLine));
+        }
+
+        ReferenceFlowLayout reference = new ReferenceFlowLayout(layout);
+        reference.measure(widthMeasureSpec, heightMeasureSpec);
+        FlowLayoutTest.assertPositions(reference, layout);
+        assertEquals("line count", reference.lines.size(), layout.getLineCount());
+      }
+    }
+  }
+
+  public void testMove() {
+    Random random = new Random(35);
+    for (int round = 0; round < ROUNDS / 10; round++) {
+      FlowLayout layout = randomLayout(getContext(), random, FlowLayout.ORIENTATION_HORIZONTAL);
+      if (layout.getChildCount() < 2) {
+        continue;
+      }
+      int widthMeasureSpec = randomMeasureSpec(random);
+      int heightMeasureSpec = randomMeasureSpec(random);
+      measure(layout, widthMeasureSpec, heightMeasureSpec);
+      for (int step = 0; step < 20; step++) {
+        // several moves may come before one measure
+        int firstMoved = layout.getChildCount();
+        for (int move = random.nextInt(3); move >= 0; move--) {
+          int from = random.nextInt(layout.getChildCount());
+          int to = random.nextInt(5) == 0 ? random.nextInt(layout.getChildCount())
+              : Math.max(0, Math.min(from + random.nextInt(7) - 3, layout.getChildCount() - 1));
+          layout.moveView(from, to);
+          if (from != to) {
+            firstMoved = Math.min(firstMoved, Math.min(from, to));
+          }
+        }
+        if (random.nextInt(4) == 0) {
+          // a child changing after the moves is reported like a rebound chip
+          resizeRandomChild(layout, random, layout.getChildCount());
+        }
+        int firstMovedLine = getLineOf(layout, firstMoved);
+        measure(layout, widthMeasureSpec, heightMeasureSpec);
+        assertTrue("reflowed from line of first moved child",
+            layout.getFirstReflowedLine() <= firstMovedLine);
+
+        ReferenceFlowLayout reference = new ReferenceFlowLayout(layout);
+        reference.measure(widthMeasureSpec, heightMeasureSpec);
+        FlowLayoutTest.assertPositions(reference, layout);
+        assertEquals("line count", reference.lines.size(), layout.getLineCount());
+        int lineTop = layout.getPaddingTop();
+        for (int line = 0; line < layout.getLineCount(); line++) {
+          assertEquals("top of line " + line, lineTop, layout.getLineTop(line));
+          lineTop += reference.lineSizes.get(line);
+        }
+      }
+    }
+  }
+
+  public void testGroups() {
+    Random random = new Random(36);
+    for (int round = 0; round < ROUNDS / 10; round++) {
+      FlowLayout layout = randomLayout(getContext(), random, FlowLayout.ORIENTATION_HORIZONTAL);
+      int widthMeasureSpec = randomMeasureSpec(random);
+      int heightMeasureSpec = randomMeasureSpec(random);
+      measure(layout, widthMeasureSpec, heightMeasureSpec);
+      for (int step = 0; step < 20; step++) {
+        // several changes may come before one measure
+        for (int change = random.nextInt(3); change >= 0; change--) {
+          int kind = random.nextInt(4);
+          if (kind < 2 && layout.getGroupCount() > 0) {
+            List<View> children = new ArrayList<View>();
+            for (int i = random.nextInt(7); i > 0; i--) {
+              children.add(randomChild(layout, random, FlowLayout.ORIENTATION_HORIZONTAL, 0));
+            }
+            layout.replaceGroup(random.nextInt(layout.getGroupCount()), children);
+          } else if (kind == 2 && layout.getChildCount() > 1) {
+            layout.moveView(random.nextInt(layout.getChildCount()),
+                random.nextInt(layout.getChildCount()));
+          } else {
+            List<View> children = new ArrayList<View>();
+            children.add(randomChild(layout, random, FlowLayout.ORIENTATION_HORIZONTAL,
+                random.nextInt(5)));
+            layout.appendViews(children);
+          }
+        }
+        if (random.nextInt(4) == 0) {
+          resizeRandomChild(layout, random, layout.getChildCount());
+        }
+        measure(layout, widthMeasureSpec, heightMeasureSpec);
+
+        ReferenceFlowLayout reference = new ReferenceFlowLayout(layout);
+        reference.measure(widthMeasureSpec, heightMeasureSpec);
+        FlowLayoutTest.assertPositions(reference, layout);
+        assertEquals("line count", reference.lines.size(), layout.getLineCount());
+        assertGroups(layout);
+        if (random.nextBoolean()) {
+          assertSameGroupsAsFullFlow(layout, widthMeasureSpec, heightMeasureSpec);
+        }
+      }
+    }
+  }
+
+  /**
+   * a group is a run of children with the same lineNum
+   */
+  private static void assertGroups(FlowLayout layout) {
+    int group = 0;
+    for (int i = 0; i < layout.getChildCount(); i++) {
+      int lineNum = ((LayoutParam) layout.getChildAt(i).getLayoutParams()).lineNum;
+      if (i > 0 && lineNum == layout.getGroupLineNum(group - 1)) {
+        continue;
+      }
+      assertEquals("start of group " + group, i, layout.getGroupStart(group));
+      group++;
+    }
+    assertEquals("group count", group, layout.getGroupCount());
+  }
+
+  private static void assertSameGroupsAsFullFlow(FlowLayout layout, int widthMeasureSpec,
+      int heightMeasureSpec) {
+    int groupCount = layout.getGroupCount();
+    int[] firstLines = new int[groupCount];
+    int[] widths = new int[groupCount];
+    for (int group = 0; group < groupCount; group++) {
+      firstLines[group] = layout.getGroupFirstLine(group);
+      widths[group] = layout.getGroupWidth(group);
+    }
+    layout.requestLayout();
+    measure(layout, widthMeasureSpec, heightMeasureSpec);
+    assertEquals("group count", groupCount, layout.getGroupCount());
+    for (int group = 0; group < groupCount; group++) {
+      assertEquals("first line of group " + group, layout.getGroupFirstLine(group),
+          firstLines[group]);
+      assertEquals("width of group " + group, layout.getGroupWidth(group), widths[group]);
+    }
+  }
+
+  public void testLineBreaker() {
+    Random random = new Random(28);
+    for (int round = 0; round < ROUNDS; round++) {
+      FlowLayout layout = randomLayout(getContext(), random, FlowLayout.ORIENTATION_HORIZONTAL);
+      int widthMeasureSpec = randomMeasureSpec(random);
+      ReferenceFlowLayout reference = new ReferenceFlowLayout(layout);
+      reference.measure(widthMeasureSpec, Scenarios.HEIGHT_MEASURE_SPEC);
+
+      FlowLineBreaker.Items items = toItems(layout);
+      int availableWidth = MeasureSpec.getSize(widthMeasureSpec) - layout.getPaddingLeft()
+          - layout.getPaddingRight();
+      FlowLineBreaker.Lines lines =
+          FlowLineBreaker.breakLines(items, layout.getPaddingLeft(), availableWidth);
+
+      assertEquals("line count of round " + round, reference.lines.size(), lines.count);
+      for (int line = 0; line < lines.count; line++) {
+        List<Integer> childIndex = reference.lines.get(line);
+        assertEquals("line size", childIndex.size(), lines.end[line] - lines.getStart(line));
+        if (!childIndex.isEmpty()) {
+          assertEquals("line start", (int) childIndex.get(0), lines.getStart(line));
+        }
+        assertEquals("line height", (int) reference.lineSizes.get(line), lines.height[line]);
+      }
+    }
+  }
+
+  static void assertSameAsReference(FlowLayout layout, int widthMeasureSpec,
+      int heightMeasureSpec) {
+    ReferenceFlowLayout reference = new ReferenceFlowLayout(layout);
+    reference.measure(widthMeasureSpec, heightMeasureSpec);
+    int childCount = layout.getChildCount();
+    int[] widths = new int[childCount];
+    int[] heights = new int[childCount];
+    for (int i = 0; i < childCount; i++) {
+      widths[i] = layout.getChildAt(i).getMeasuredWidth();
+      heights[i] = layout.getChildAt(i).getMeasuredHeight();
+    }
+
+    // measure twice ,state of last pass must not leak into the next one
+    for (int pass = 0; pass < 2; pass++) {
+      layout.forceLayout();
+      layout.measure(widthMeasureSpec, heightMeasureSpec);
+      FlowLayoutTest.assertPositions(reference, layout);
+      for (int i = 0; i < childCount; i++) {
+        assertEquals("width of child " + i, widths[i], layout.getChildAt(i).getMeasuredWidth());
+        assertEquals("height of child " + i, heights[i],
+            layout.getChildAt(i).getMeasuredHeight());
+      }
+    }
+  }
+
+  /**
+   * resize one of the first given count of children like a chip whose text changes ,it wraps its
+   * new size ,requests its own layout and is reported to layout as ChipHelper does
+   *
+   * @return index of resized child ,-1 if there is no such child
+   */
+  private static int resizeRandomChild(FlowLayout layout, Random random, int count) {
+    if (count <= 0) {
+      return -1;
+    }
+    int index = random.nextInt(count);
+    TestChildView child = (TestChildView) layout.getChildAt(index);
+    layout.requestChildLayout(child);
+    LayoutParam lp = (LayoutParam) child.getLayoutParams();
+    lp.width = LayoutParams.WRAP_CONTENT;
+    lp.height = LayoutParams.WRAP_CONTENT;
+    child.setIntrinsicSize(random.nextInt(400), random.nextInt(300));
+    return index;
+  }
+
+  private static int getLineOf(FlowLayout layout, int child) {
+    for (int line = 0; line < layout.getLineCount(); line++) {
+      if (child < layout.getLineEnd(line)) {
+        return line;
+      }
+    }
+    return layout.getLineCount() - 1;
+  }
+
+  private static void measure(FlowLayout layout, int widthMeasureSpec, int heightMeasureSpec) {
+    layout.measure(widthMeasureSpec, heightMeasureSpec);
+    layout.layout(0, 0, layout.getMeasuredWidth(), layout.getMeasuredHeight());
+    // only children of changed lines are laid out ,the others must already be in place
+    for (int i = 0; i < layout.getChildCount(); i++) {
+      View child = layout.getChildAt(i);
+      if (child.getVisibility() == View.GONE) {
+        continue;
+      }
+      LayoutParam lp = (LayoutParam) child.getLayoutParams();
+      assertEquals("laid out left of child " + i, lp.left, child.getLeft());
+      assertEquals("laid out top of child " + i, lp.top, child.getTop());
+      assertEquals("laid out width of child " + i, child.getMeasuredWidth(), child.getWidth());
+      assertEquals("laid out height of child " + i, child.getMeasuredHeight(), child.getHeight());
+    }
+  }
+
+  static FlowLayout randomLayout(Context context, Random random, int orientation) {
+    return fillRandom(new FlowLayout(context), random, orientation);
+  }
+
+  static FlowLayout fillRandom(FlowLayout layout, Random random, int orientation) {
+    int[] gravities = {
+        FlowLayout.GRAVITY_NONE, FlowLayout.GRAVITY_LEFT, FlowLayout.GRAVITY_CENTER,
+        FlowLayout.GRAVITY_RIGHT, FlowLayout.GRAVITY_TOP, FlowLayout.GRAVITY_BOTTOM
+    };
+    layout.setOrientation(orientation);
+    layout.setGravity(gravities[random.nextInt(gravities.length)]);
+    layout.horizontalSpacing = random.nextBoolean() ? SPACING_NONE : random.nextInt(30);
+    layout.verticalSpacing = random.nextBoolean() ? SPACING_NONE : random.nextInt(30);
+    layout.setPadding(random.nextInt(40), random.nextInt(40), random.nextInt(40),
+        random.nextInt(40));
+    int childCount = random.nextInt(60);
+    int lineNum = LayoutParam.LINE_NUM_INVALID;
+    for (int i = 0; i < childCount; i++) {
+      if (random.nextInt(8) == 0) {
+        lineNum = random.nextInt(5);
+      }
+      layout.addView(randomChild(layout, random, orientation, lineNum));
+    }
+    return layout;
+  }
+
+  static View randomChild(FlowLayout layout, Random random, int orientation, int lineNum) {
+    TestChildView child =
+        new TestChildView(layout.getContext(), random.nextInt(400), random.nextInt(300));
+    int main;
+    float weight = 0;
+    int kind = random.nextInt(20);
+    if (kind == 0) {
+      main = LayoutParams.MATCH_PARENT;
+    } else if (kind == 1) {
+      main = LayoutParams.WRAP_CONTENT;
+    } else if (kind < 4) {
+      main = 0;
+      weight = random.nextInt(3) + 1;
+    } else {
+      main = random.nextInt(10) == 0 ? 0 : random.nextInt(500);
+    }
+    int cross = random.nextInt(300);
+    LayoutParam lp = orientation == FlowLayout.ORIENTATION_HORIZONTAL
+        ? new LayoutParam(main, cross) : new LayoutParam(cross, main);
+    lp.weight = weight;
+    lp.lineNum = lineNum;
+    lp.leftMargin = random.nextInt(3) * 5;
+    lp.rightMargin = random.nextInt(3) * 5;
+    lp.topMargin = random.nextInt(3) * 5;
+    lp.bottomMargin = random.nextInt(3) * 5;
+    lp.horizontalSpacing = random.nextBoolean() ? SPACING_NONE : random.nextInt(20);
+    lp.verticalSpacing = random.nextBoolean() ? SPACING_NONE : random.nextInt(20);
+    child.setLayoutParams(lp);
+    return child;
+  }
+
+  static int randomMeasureSpec(Random random) {
+    int[] modes = {MeasureSpec.EXACTLY, MeasureSpec.AT_MOST, MeasureSpec.UNSPECIFIED};
+    return MeasureSpec.makeMeasureSpec(200 + random.nextInt(1400),
+        modes[random.nextInt(modes.length)]);
+  }
+
+  /**
+   * pack children measured by a horizontal pass
+   */
+  static FlowLineBreaker.Items toItems(FlowLayout layout) {
+    FlowLineBreaker.Items items = new FlowLineBreaker.Items(layout.getChildCount());
+    for (int i = 0; i < layout.getChildCount(); i++) {
+      View child = layout.getChildAt(i);
+      LayoutParam lp = (LayoutParam) child.getLayoutParams();
+      int type = FlowLineBreaker.typeOf(lp.width, lp.weight);
+      int width = lp.width == LayoutParams.WRAP_CONTENT ? child.getMeasuredWidth() : lp.width;
+      int height = type == FlowLineBreaker.TYPE_WEIGHT ? lp.height : child.getMeasuredHeight();
+      int horizontalSpacing = lp.horizontalSpacing == SPACING_NONE
+          ? (layout.horizontalSpacing == SPACING_NONE ? 0 : layout.horizontalSpacing)
+          : lp.horizontalSpacing;
+      int verticalSpacing = lp.verticalSpacing == SPACING_NONE
+          ? (layout.verticalSpacing == SPACING_NONE ? 0 : layout.verticalSpacing)
+          : lp.verticalSpacing;
+      items.add(type, width, height, lp.leftMargin + lp.rightMargin,
+          lp.topMargin + lp.bottomMargin, horizontalSpacing, verticalSpacing, lp.lineNum,
+          lp.weight);
+    }
+    return items;
+  }
+}
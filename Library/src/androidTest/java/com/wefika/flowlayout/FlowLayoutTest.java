@@ -16,14 +16,157 @@
 
 package com.wefika.flowlayout;
 
-import android.app.Application;
-import android.test.ApplicationTestCase;
+import java.util.Random;
+
+import android.os.Debug;
+import android.test.AndroidTestCase;
+
+import com.suan.flowlayout.FlowLayout;
+import com.suan.flowlayout.FlowLayout.LayoutParam;
 
 /**
- * <a href="http://d.android.com/tools/testing/testing_android.html">Testing Fundamentals</a>
+ * performance budgets of {@link FlowLayout} for the scenarios of the Example activities:
+ * 1.child.measure calls per onMeasure
+ * 2.allocations per steady-state measure pass
+ * 3.layout passes per addView
+ *
+ * like every test of this folder it's an instrumentation test and needs a device or emulator,
+ * the allocation budget counts with the allocation tracker of the Android runtime and is not
+ * checked anywhere else
  */
-public class FlowLayoutTest extends ApplicationTestCase<Application> {
-    public FlowLayoutTest() {
-        super(Application.class);
+public class FlowLayoutTest extends AndroidTestCase {
+
+  /**
+   * allocations of a steady-state pass may only grow with lines and children
+   */
+  private static final int ALLOCATION_BUDGET_BASE = 32;
+  private static final int ALLOCATION_BUDGET_PER_LINE = 12;
+  private static final int ALLOCATION_BUDGET_PER_CHILD = 4;
+
+  public void testNormalFlowBudget() {
+    assertMeasureBudget(Scenarios.normalFlow(getContext()));
+  }
+
+  public void testGravityWeightBudget() {
+    assertMeasureBudget(Scenarios.gravityWeight(getContext()));
+  }
+
+  public void testLineNumBudget() {
+    assertMeasureBudget(Scenarios.lineNum(getContext()));
+  }
+
+  public void testCrazyAppendBudget() {
+    CountingFlowLayout layout = Scenarios.crazy(getContext());
+    Random random = new Random(400);
+    Scenarios.measure(layout);
+    for (int i = 0; i < Scenarios.CRAZY_CHILD_COUNT; i++) {
+      layout.resetCounts();
+      resetChildMeasureCount(layout);
+
+      TestChildView child = Scenarios.crazyChild(getContext(), random);
+      layout.addView(child);
+      layout.setGravity(i % 2 == 0 ? FlowLayout.GRAVITY_CENTER : FlowLayout.GRAVITY_RIGHT);
+      assertTrue("append #" + i + " requested " + layout.requestLayoutCount + " layouts",
+          layout.requestLayoutCount <= 2);
+
+      // one frame
+      if (layout.isLayoutRequested()) {
+        Scenarios.measure(layout);
+      }
+      assertEquals("measure passes of append #" + i, 1, layout.measureCount);
+      assertEquals("layout passes of append #" + i, 1, layout.layoutCount);
+      assertEquals("only appended child is measured", 1, child.measureCount);
+      assertEquals("children measured on append #" + i, 1, totalChildMeasureCount(layout));
+    }
+    assertMeasureBudget(layout);
+  }
+
+  public void testSetSameGravityDoesNotRequestLayout() {
+    CountingFlowLayout layout = Scenarios.normalFlow(getContext());
+    Scenarios.measure(layout);
+    layout.resetCounts();
+    layout.setGravity(layout.getGravity());
+    layout.setOrientation(layout.getOrientation());
+    assertEquals(0, layout.requestLayoutCount);
+    assertFalse(layout.isLayoutRequested());
+  }
+
+  private void assertMeasureBudget(CountingFlowLayout layout) {
+    int childCount = layout.getChildCount();
+
+    // cold pass ,every child is measured at most once
+    forceLayoutChildren(layout);
+    resetChildMeasureCount(layout);
+    layout.forceLayout();
+    Scenarios.measure(layout);
+    for (int i = 0; i < childCount; i++) {
+      TestChildView child = (TestChildView) layout.getChildAt(i);
+      assertTrue("child " + i + " measured " + child.measureCount + " times in one pass",
+          child.measureCount <= 1);
+    }
+
+    // steady-state pass ,nothing changed ,no child needs to measure again
+    resetChildMeasureCount(layout);
+    layout.forceLayout();
+    Scenarios.measure(layout);
+    assertEquals("children measured in steady-state pass", 0, totalChildMeasureCount(layout));
+
+    ReferenceFlowLayout reference = new ReferenceFlowLayout(layout);
+    reference.measure(Scenarios.WIDTH_MEASURE_SPEC, Scenarios.HEIGHT_MEASURE_SPEC);
+    assertPositions(reference, layout);
+
+    int lineCount = reference.lines.size();
+    int budget = ALLOCATION_BUDGET_BASE + ALLOCATION_BUDGET_PER_LINE * lineCount
+        + ALLOCATION_BUDGET_PER_CHILD * childCount;
+    int allocations = countSteadyStateAllocations(layout);
+    assertTrue("steady-state pass allocated " + allocations + " objects ,budget " + budget,
+        allocations <= budget);
+  }
+
+  private static int countSteadyStateAllocations(FlowLayout layout) {
+    // warm up
+    layout.forceLayout();
+    Scenarios.measure(layout);
+
+    // alloc counting is deprecated from API 23 on ,it is the only per thread count on API 19 though
+    Debug.startAllocCounting();
+    try {
+      Debug.resetThreadAllocCount();
+      layout.forceLayout();
+      Scenarios.measure(layout);
+      return Debug.getThreadAllocCount();
+    } finally {
+      Debug.stopAllocCounting();
+    }
+  }
+
+  static void assertPositions(ReferenceFlowLayout reference, FlowLayout layout) {
+    assertEquals("measured width", reference.measuredWidth, layout.getMeasuredWidth());
+    assertEquals("measured height", reference.measuredHeight, layout.getMeasuredHeight());
+    for (int i = 0; i < layout.getChildCount(); i++) {
+      LayoutParam lp = (LayoutParam) layout.getChildAt(i).getLayoutParams();
+      assertEquals("left of child " + i, reference.lefts[i], lp.left);
+      assertEquals("top of child " + i, reference.tops[i], lp.top);
+    }
+  }
+
+  private static void forceLayoutChildren(FlowLayout layout) {
+    for (int i = 0; i < layout.getChildCount(); i++) {
+      layout.getChildAt(i).forceLayout();
+    }
+  }
+
+  private static void resetChildMeasureCount(FlowLayout layout) {
+    for (int i = 0; i < layout.getChildCount(); i++) {
+      ((TestChildView) layout.getChildAt(i)).measureCount = 0;
+    }
+  }
+
+  private static int totalChildMeasureCount(FlowLayout layout) {
+    int count = 0;
+    for (int i = 0; i < layout.getChildCount(); i++) {
+      count += ((TestChildView) layout.getChildAt(i)).measureCount;
     }
+    return count;
+  }
 }
@@ -0,0 +1,181 @@
+package com.wefika.flowlayout;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import android.test.AndroidTestCase;
+import android.view.View;
+
+import com.suan.flowlayout.FlowLayout;
+import com.suan.flowlayout.FlowLayout.LayoutParam;
+import com.suan.flowlayout.FlowPager;
+
+public class FlowPagerTest extends AndroidTestCase {
+
+  private static final int ITEM_COUNT = 95;
+  private static final int PAGE_SIZE = 10;
+  private static final int PREFETCH_LINES = 2;
+
+  public void testLoadAhead() {
+    CountingFlowLayout layout = new CountingFlowLayout(getContext());
+    FakeDataSource source = new FakeDataSource(true);
+    FlowPager<Integer> pager = new FlowPager<Integer>(layout, source, new ChildBinder());
+    pager.setPrefetchLines(PREFETCH_LINES);
+    pager.start();
+    assertEquals(1, pager.getLoadedPageCount());
+
+    // viewport keeps showing first line only ,pages are loaded until enough lines are below it
+    int viewportBottom = 1;
+    settle(layout, pager, viewportBottom);
+    int lineCount = layout.getLineCount();
+    assertTrue(lineCount - 1 - layout.getLineForY(viewportBottom) > PREFETCH_LINES);
+    assertTrue(pager.hasMore());
+    int loadedPageCount = pager.getLoadedPageCount();
+    pager.checkLoadAhead(viewportBottom);
+    assertEquals("no page is loaded while far from the end", loadedPageCount,
+        pager.getLoadedPageCount());
+
+    // scroll to the end
+    while (pager.hasMore()) {
+      viewportBottom = layout.getMeasuredHeight();
+      pager.checkLoadAhead(viewportBottom);
+      settle(layout, pager, viewportBottom);
+    }
+    assertEquals(ITEM_COUNT, layout.getChildCount());
+    assertEquals((ITEM_COUNT + PAGE_SIZE - 1) / PAGE_SIZE, source.requestCount);
+  }
+
+  public void testVerticalRejected() {
+    CountingFlowLayout layout = new CountingFlowLayout(getContext());
+    layout.setOrientation(FlowLayout.ORIENTATION_VERTICAL);
+    try {
+      new FlowPager<Integer>(layout, new FakeDataSource(true), new ChildBinder());
+      fail("vertical layout has no lines to load ahead by");
+    } catch (IllegalArgumentException expected) {
+    }
+
+    layout.setOrientation(FlowLayout.ORIENTATION_HORIZONTAL);
+    FlowPager<Integer> pager =
+        new FlowPager<Integer>(layout, new FakeDataSource(true), new ChildBinder());
+    pager.start();
+    Scenarios.measure(layout);
+    layout.setOrientation(FlowLayout.ORIENTATION_VERTICAL);
+    Scenarios.measure(layout);
+    try {
+      pager.checkLoadAhead(0);
+      fail("orientation changed to vertical");
+    } catch (IllegalStateException expected) {
+    }
+    assertEquals(1, pager.getLoadedPageCount());
+  }
+
+  public void testAsyncLoad() {
+    CountingFlowLayout layout = new CountingFlowLayout(getContext());
+    FakeDataSource source = new FakeDataSource(false);
+    FlowPager<Integer> pager = new FlowPager<Integer>(layout, source, new ChildBinder());
+    pager.start();
+    pager.checkLoadAhead(0);
+    assertTrue(pager.isLoading());
+    assertEquals("one request at a time", 1, source.requestCount);
+
+    source.deliver();
+    assertFalse(pager.isLoading());
+    assertEquals(PAGE_SIZE, layout.getChildCount());
+
+    Scenarios.measure(layout);
+    pager.checkLoadAhead(layout.getMeasuredHeight());
+    assertEquals(2, source.requestCount);
+    pager.stop();
+    source.deliver();
+    assertEquals("page loaded after stop is dropped", PAGE_SIZE, layout.getChildCount());
+  }
+
+  /**
+   * lay out every appended page and check it against a full flow
+   */
+  private static void settle(CountingFlowLayout layout, FlowPager<Integer> pager,
+      int viewportBottom) {
+    while (layout.isLayoutRequested()) {
+      int lineCount = layout.getLineCount();
+      int oldChildCount = countMeasuredChildren(layout);
+      Scenarios.measure(layout);
+      if (lineCount > 0) {
+        assertEquals("lines before the last one are kept", lineCount - 1,
+            layout.getFirstReflowedLine());
+        for (int i = 0; i < oldChildCount; i++) {
+          assertEquals("child " + i + " of previous pages measured again", 0,
+              ((TestChildView) layout.getChildAt(i)).measureCount);
+        }
+      }
+      ReferenceFlowLayout reference = new ReferenceFlowLayout(layout);
+      reference.measure(Scenarios.WIDTH_MEASURE_SPEC, Scenarios.HEIGHT_MEASURE_SPEC);
+      FlowLayoutTest.assertPositions(reference, layout);
+      for (int i = 0; i < layout.getChildCount(); i++) {
+        ((TestChildView) layout.getChildAt(i)).measureCount = 0;
+      }
+      pager.checkLoadAhead(viewportBottom);
+    }
+  }
+
+  /**
+   * @return count of children before the first one never measured
+   */
+  private static int countMeasuredChildren(FlowLayout layout) {
+    int count = 0;
+    while (count < layout.getChildCount() && layout.getChildAt(count).getMeasuredWidth() != 0) {
+      count++;
+    }
+    return count;
+  }
+
+  /**
+   * in memory data source ,items are 0 until ITEM_COUNT
+   */
+  private static class FakeDataSource implements FlowPager.DataSource<Integer> {
+
+    private final boolean synchronous;
+    int requestCount = 0;
+    private int pendingPage;
+    private FlowPager.LoadCallback<Integer> pendingCallback;
+
+    FakeDataSource(boolean synchronous) {
+      this.synchronous = synchronous;
+    }
+
+    @Override
+    public int getPageSize() {
+      return PAGE_SIZE;
+    }
+
+    @Override
+    public void loadPage(int page, int pageSize, FlowPager.LoadCallback<Integer> callback) {
+      requestCount++;
+      pendingPage = page;
+      pendingCallback = callback;
+      if (synchronous) {
+        deliver();
+      }
+    }
+
+    void deliver() {
+      List<Integer> items = new ArrayList<Integer>();
+      int start = pendingPage * PAGE_SIZE;
+      for (int item = start; item < Math.min(start + PAGE_SIZE, ITEM_COUNT); item++) {
+        items.add(item);
+      }
+      FlowPager.LoadCallback<Integer> callback = pendingCallback;
+      pendingCallback = null;
+      callback.onPageLoaded(pendingPage, items, start + PAGE_SIZE < ITEM_COUNT);
+    }
+  }
+
+  private static class ChildBinder implements FlowPager.ViewBinder<Integer> {
+
+    @Override
+    public View createView(FlowLayout parent, Integer item) {
+      TestChildView child = new TestChildView(parent.getContext(), 120 + item * 37 % 300, 90);
+      child.setLayoutParams(new LayoutParam(LayoutParam.WRAP_CONTENT, LayoutParam.WRAP_CONTENT));
+      return child;
+    }
+  }
+}
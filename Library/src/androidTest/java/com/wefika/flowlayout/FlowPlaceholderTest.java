@@ -0,0 +1,137 @@
+package com.wefika.flowlayout;
+
+import android.content.Context;
+import android.test.AndroidTestCase;
+import android.view.View;
+import android.view.ViewGroup.LayoutParams;
+
+import com.suan.flowlayout.FlowLayout;
+import com.suan.flowlayout.FlowLayout.LayoutParam;
+import com.suan.flowlayout.FlowPlaceholder;
+
+public class FlowPlaceholderTest extends AndroidTestCase {
+
+  private static final int CHILD_COUNT = 60;
+  private static final int HINT_WIDTH = 300;
+  private static final int HINT_HEIGHT = 150;
+
+  public void testInflateNearViewport() {
+    ViewportFlowLayout layout = placeholderFlow(getContext(), -1, 0);
+    layout.viewportTop = 0;
+    Scenarios.measure(layout);
+    assertInflatedNearViewport(layout);
+
+    layout.viewportTop = 1200;
+    Scenarios.measure(layout);
+    assertInflatedNearViewport(layout);
+    assertFalse("children above viewport stay inflated",
+        layout.getChildAt(0) instanceof FlowPlaceholder);
+  }
+
+  public void testHintMatch() {
+    ViewportFlowLayout layout = placeholderFlow(getContext(), -1, 0);
+    Scenarios.measure(layout);
+    int index = 20;
+    View placeholder = layout.getChildAt(index);
+    assertTrue(placeholder instanceof FlowPlaceholder);
+    int left = placeholder.getLeft();
+    int top = placeholder.getTop();
+
+    View child = layout.inflatePlaceholder(index);
+    assertTrue(child instanceof TestChildView);
+    assertSame(child, layout.getChildAt(index));
+    assertFalse("hinted size needs no layout", layout.isLayoutRequested());
+    assertEquals(left, child.getLeft());
+    assertEquals(top, child.getTop());
+    assertEquals(HINT_WIDTH, child.getWidth());
+    assertEquals(HINT_HEIGHT, child.getHeight());
+  }
+
+  public void testHintMismatch() {
+    int index = 31;
+    ViewportFlowLayout layout = placeholderFlow(getContext(), index, HINT_WIDTH + 200);
+    Scenarios.measure(layout);
+    int line = layout.getLineForY(layout.getChildAt(index).getTop());
+    assertTrue(line > 0);
+
+    View child = layout.inflatePlaceholder(index);
+    assertTrue(layout.isLayoutRequested());
+    Scenarios.measure(layout);
+    assertEquals("only lines from the one of the placeholder are flowed", line,
+        layout.getFirstReflowedLine());
+    assertEquals(HINT_WIDTH + 200, child.getWidth());
+    ReferenceFlowLayout reference = new ReferenceFlowLayout(layout);
+    reference.measure(Scenarios.WIDTH_MEASURE_SPEC, Scenarios.HEIGHT_MEASURE_SPEC);
+    FlowLayoutTest.assertPositions(reference, layout);
+  }
+
+  public void testRemovePlaceholders() {
+    ViewportFlowLayout layout = placeholderFlow(getContext(), -1, 0);
+    assertEquals(CHILD_COUNT, layout.getPlaceholderCount());
+    layout.viewportTop = 0;
+    Scenarios.measure(layout);
+    int placeholderCount = layout.getPlaceholderCount();
+    assertTrue(placeholderCount > 0);
+    assertTrue(placeholderCount < CHILD_COUNT);
+
+    layout.removeViewAt(layout.getChildCount() - 1);
+    assertEquals(placeholderCount - 1, layout.getPlaceholderCount());
+    // removing real views leaves the count
+    layout.removeViewAt(0);
+    assertEquals(placeholderCount - 1, layout.getPlaceholderCount());
+
+    for (int i = layout.getChildCount() - 1; i >= 0; i--) {
+      if (layout.getChildAt(i) instanceof FlowPlaceholder) {
+        layout.removeViewAt(i);
+      }
+    }
+    assertEquals(0, layout.getPlaceholderCount());
+    layout.viewportLookupCount = 0;
+    layout.forceLayout();
+    Scenarios.measure(layout);
+    assertEquals("viewport is not watched without placeholders", 0,
+        layout.viewportLookupCount);
+
+    layout.removeAllViews();
+    assertEquals(0, layout.getPlaceholderCount());
+  }
+
+  private static void assertInflatedNearViewport(ViewportFlowLayout layout) {
+    int firstLine = Math.max(0,
+        layout.getLineForY(layout.viewportTop) - FlowLayout.DEFAULT_PLACEHOLDER_PREFETCH_LINES);
+    int lastLine = layout.getLineForY(layout.viewportTop + ViewportFlowLayout.VIEWPORT_HEIGHT)
+        + FlowLayout.DEFAULT_PLACEHOLDER_PREFETCH_LINES;
+    assertTrue("some lines stay placeholders", lastLine < layout.getLineCount() - 1);
+    for (int line = firstLine; line <= lastLine; line++) {
+      for (int i = layout.getLineStart(line); i < layout.getLineEnd(line); i++) {
+        assertFalse("child " + i + " of line " + line + " inflated",
+            layout.getChildAt(i) instanceof FlowPlaceholder);
+      }
+    }
+    for (int i = layout.getLineEnd(lastLine); i < layout.getChildCount(); i++) {
+      assertTrue("child " + i + " below viewport not inflated",
+          layout.getChildAt(i) instanceof FlowPlaceholder);
+    }
+  }
+
+  /**
+   * placeholders hinting their real size ,except the one at given index whose real width differs
+   */
+  private static ViewportFlowLayout placeholderFlow(Context context, final int otherIndex,
+      final int otherWidth) {
+    ViewportFlowLayout layout = new ViewportFlowLayout(context);
+    for (int i = 0; i < CHILD_COUNT; i++) {
+      final int width = i == otherIndex ? otherWidth : HINT_WIDTH;
+      LayoutParam lp = new LayoutParam(LayoutParams.WRAP_CONTENT, LayoutParams.WRAP_CONTENT);
+      lp.hintWidth = HINT_WIDTH;
+      lp.hintHeight = HINT_HEIGHT;
+      layout.addPlaceholder(new FlowPlaceholder.Inflater() {
+        @Override
+        public View inflate(FlowLayout parent, FlowPlaceholder placeholder) {
+          return new TestChildView(parent.getContext(), width, HINT_HEIGHT);
+        }
+      }, lp);
+    }
+    return layout;
+  }
+}
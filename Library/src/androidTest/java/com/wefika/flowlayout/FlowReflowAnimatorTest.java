@@ -0,0 +1,70 @@
+package com.wefika.flowlayout;
+
+import android.graphics.Rect;
+import android.test.AndroidTestCase;
+import android.view.View;
+
+import com.suan.flowlayout.FlowLayout.LayoutParam;
+
+public class FlowReflowAnimatorTest extends AndroidTestCase {
+
+  private static final int CHILD_COUNT = 60;
+
+  public void testMoveVisibleChildren() {
+    ViewportFlowLayout layout = new ViewportFlowLayout(getContext());
+    layout.viewportTop = 0;
+    layout.horizontalSpacing = 20;
+    layout.verticalSpacing = 20;
+    for (int i = 0; i < CHILD_COUNT; i++) {
+      Scenarios.addChild(layout, 300, 150, LayoutParam.LINE_NUM_INVALID, 0);
+    }
+    RecordingReflowAnimator animator = new RecordingReflowAnimator();
+    layout.setReflowAnimator(animator);
+    Scenarios.measure(layout);
+    assertTrue("children never laid out are not animated", animator.animated.isEmpty());
+    int[] lefts = new int[CHILD_COUNT];
+    int[] tops = new int[CHILD_COUNT];
+    for (int i = 0; i < CHILD_COUNT; i++) {
+      lefts[i] = layout.getChildAt(i).getLeft();
+      tops[i] = layout.getChildAt(i).getTop();
+    }
+
+    // every child moves one slot
+    View first = new TestChildView(getContext(), 360, 120);
+    layout.addView(first, 0, new LayoutParam(300, 150));
+    Scenarios.measure(layout);
+    assertFalse(animator.animated.contains(first));
+    Rect viewport = new Rect(0, layout.viewportTop, Scenarios.WIDTH,
+        layout.viewportTop + ViewportFlowLayout.VIEWPORT_HEIGHT);
+    int animatedCount = 0;
+    int skippedCount = 0;
+    for (int i = 0; i < CHILD_COUNT; i++) {
+      View child = layout.getChildAt(i + 1);
+      boolean visible = viewport.intersects(lefts[i], tops[i], lefts[i] + 300, tops[i] + 150)
+          || viewport.intersects(child.getLeft(), child.getTop(), child.getRight(),
+          child.getBottom());
+      if (visible) {
+        animatedCount++;
+        assertTrue("visible child " + i + " animated", animator.animated.contains(child));
+        assertEquals("child " + i + " starts where it was", lefts[i],
+            (int) (child.getLeft() + child.getTranslationX()));
+        assertEquals("child " + i + " starts where it was", tops[i],
+            (int) (child.getTop() + child.getTranslationY()));
+      } else {
+        skippedCount++;
+        assertFalse("child " + i + " off screen animated", animator.animated.contains(child));
+        assertEquals(0f, child.getTranslationX(), 0f);
+        assertEquals(0f, child.getTranslationY(), 0f);
+      }
+    }
+    assertTrue(animatedCount > 0);
+    assertTrue(skippedCount > 0);
+    assertEquals(animatedCount, animator.animated.size());
+
+    animator.endAnimations();
+    for (int i = 0; i < layout.getChildCount(); i++) {
+      assertEquals(0f, layout.getChildAt(i).getTranslationX(), 0f);
+      assertEquals(0f, layout.getChildAt(i).getTranslationY(), 0f);
+    }
+  }
+}
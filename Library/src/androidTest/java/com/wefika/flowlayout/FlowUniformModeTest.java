@@ -0,0 +1,100 @@
+package com.wefika.flowlayout;
+
+import java.util.Random;
+
+import android.test.AndroidTestCase;
+
+import com.suan.flowlayout.FlowLayout;
+import com.suan.flowlayout.FlowLayout.LayoutParam;
+
+public class FlowUniformModeTest extends AndroidTestCase {
+
+  private static final int CHILD_WIDTH = 250;
+  private static final int CHILD_HEIGHT = 120;
+  private static final int SPACING_NONE = -1;
+
+  /**
+   * without padding ,spacing and margins uniform mode places children like the normal flow
+   */
+  public void testSameAsNormalFlow() {
+    Random random = new Random(34);
+    int[] gravities = {
+        FlowLayout.GRAVITY_NONE, FlowLayout.GRAVITY_CENTER, FlowLayout.GRAVITY_RIGHT
+    };
+    for (int round = 0; round < 30; round++) {
+      int childCount = random.nextInt(100);
+      int gravity = gravities[random.nextInt(gravities.length)];
+      FlowLayout normal = grid(childCount, gravity);
+      FlowLayout uniform = grid(childCount, gravity);
+      uniform.setUniformMode(true);
+      if (random.nextBoolean()) {
+        uniform.setUniformChildSize(CHILD_WIDTH, CHILD_HEIGHT);
+      }
+      Scenarios.measure(normal);
+      Scenarios.measure(uniform);
+
+      ReferenceFlowLayout reference = new ReferenceFlowLayout(normal);
+      reference.measure(Scenarios.WIDTH_MEASURE_SPEC, Scenarios.HEIGHT_MEASURE_SPEC);
+      FlowLayoutTest.assertPositions(reference, uniform);
+
+      if (childCount == 0) {
+        assertEquals(0, uniform.getLineCount());
+        continue;
+      }
+      assertEquals("line count", normal.getLineCount(), uniform.getLineCount());
+      for (int line = 0; line < normal.getLineCount(); line++) {
+        assertEquals("top of line " + line, normal.getLineTop(line), uniform.getLineTop(line));
+        assertEquals("bottom of line " + line, normal.getLineBottom(line),
+            uniform.getLineBottom(line));
+        assertEquals("start of line " + line, normal.getLineStart(line),
+            uniform.getLineStart(line));
+        assertEquals("end of line " + line, normal.getLineEnd(line), uniform.getLineEnd(line));
+      }
+      for (int y = -10; y < normal.getMeasuredHeight() + 10; y += 7) {
+        assertEquals("line for y " + y, normal.getLineForY(y), uniform.getLineForY(y));
+      }
+    }
+  }
+
+  public void testChildrenMeasuredOnce() {
+    FlowLayout layout = grid(200, FlowLayout.GRAVITY_NONE);
+    layout.setUniformMode(true);
+    layout.setUniformChildSize(CHILD_WIDTH, CHILD_HEIGHT);
+    Scenarios.measure(layout);
+    for (int i = 0; i < layout.getChildCount(); i++) {
+      TestChildView child = (TestChildView) layout.getChildAt(i);
+      assertEquals("measure of child " + i, 1, child.measureCount);
+      assertEquals(CHILD_WIDTH, child.getMeasuredWidth());
+      assertEquals(CHILD_HEIGHT, child.getMeasuredHeight());
+      child.measureCount = 0;
+    }
+
+    // steady state ,and size taken from first child
+    layout.setUniformChildSize(FlowLayout.UNIFORM_SIZE_FIRST_CHILD,
+        FlowLayout.UNIFORM_SIZE_FIRST_CHILD);
+    Scenarios.measure(layout);
+    for (int i = 0; i < layout.getChildCount(); i++) {
+      TestChildView child = (TestChildView) layout.getChildAt(i);
+      child.measureCount = 0;
+    }
+    layout.forceLayout();
+    Scenarios.measure(layout);
+    for (int i = 0; i < layout.getChildCount(); i++) {
+      assertEquals("measure of child " + i + " in steady state", 0,
+          ((TestChildView) layout.getChildAt(i)).measureCount);
+    }
+  }
+
+  private FlowLayout grid(int childCount, int gravity) {
+    FlowLayout layout = new FlowLayout(getContext());
+    layout.setGravity(gravity);
+    for (int i = 0; i < childCount; i++) {
+      TestChildView child = new TestChildView(getContext(), CHILD_WIDTH, CHILD_HEIGHT);
+      LayoutParam lp = new LayoutParam(CHILD_WIDTH, CHILD_HEIGHT);
+      lp.horizontalSpacing = SPACING_NONE;
+      lp.verticalSpacing = SPACING_NONE;
+      layout.addView(child, lp);
+    }
+    return layout;
+  }
+}
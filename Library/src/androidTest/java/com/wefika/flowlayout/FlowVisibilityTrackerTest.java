@@ -0,0 +1,93 @@
+package com.wefika.flowlayout;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import android.test.AndroidTestCase;
+import android.view.View;
+
+import com.suan.flowlayout.FlowLayout;
+import com.suan.flowlayout.FlowVisibilityTracker;
+
+public class FlowVisibilityTrackerTest extends AndroidTestCase {
+
+  private static final int VIEWPORT_HEIGHT = 700;
+
+  public void testScroll() {
+    Random random = new Random(33);
+    for (float threshold : new float[] {0f, 0.5f, 1f}) {
+      CountingFlowLayout layout = Scenarios.normalFlow(getContext());
+      Scenarios.measure(layout);
+      RecordingListener listener = new RecordingListener();
+      FlowVisibilityTracker tracker = new FlowVisibilityTracker(layout, listener);
+      tracker.setThreshold(threshold);
+
+      int top = 0;
+      for (int step = 0; step < 200; step++) {
+        top += random.nextInt(5) == 0 ? random.nextInt(2000) - 1000 : random.nextInt(200) - 100;
+        top = Math.max(-VIEWPORT_HEIGHT, Math.min(top, layout.getMeasuredHeight()));
+        tracker.update(0, top, Scenarios.WIDTH, top + VIEWPORT_HEIGHT);
+        assertVisible(layout, listener, threshold, top);
+        assertEquals(listener.visible.size(), tracker.getVisibleChildCount());
+      }
+    }
+  }
+
+  public void testRelayout() {
+    CountingFlowLayout layout = Scenarios.normalFlow(getContext());
+    Scenarios.measure(layout);
+    RecordingListener listener = new RecordingListener();
+    FlowVisibilityTracker tracker = new FlowVisibilityTracker(layout, listener);
+    int top = 400;
+    tracker.update(0, top, Scenarios.WIDTH, top + VIEWPORT_HEIGHT);
+    assertVisible(layout, listener, FlowVisibilityTracker.DEFAULT_THRESHOLD, top);
+
+    // children move to other lines
+    View first =
+        Scenarios.addChild(layout, 700, 300, FlowLayout.LayoutParam.LINE_NUM_INVALID, 0);
+    layout.removeView(first);
+    layout.addView(first, 0);
+    Scenarios.measure(layout);
+    tracker.update(0, top, Scenarios.WIDTH, top + VIEWPORT_HEIGHT);
+    assertVisible(layout, listener, FlowVisibilityTracker.DEFAULT_THRESHOLD, top);
+
+    // removed child exits
+    View removed = layout.getChildAt(layout.getLineStart(layout.getLineForY(top + 200)));
+    assertTrue(listener.visible.contains(removed));
+    layout.removeView(removed);
+    Scenarios.measure(layout);
+    tracker.update(0, top, Scenarios.WIDTH, top + VIEWPORT_HEIGHT);
+    assertFalse(listener.visible.contains(removed));
+    assertVisible(layout, listener, FlowVisibilityTracker.DEFAULT_THRESHOLD, top);
+  }
+
+  private static void assertVisible(FlowLayout layout, RecordingListener listener,
+      float threshold, int top) {
+    int bottom = top + VIEWPORT_HEIGHT;
+    Set<View> expected = new HashSet<View>();
+    for (int i = 0; i < layout.getChildCount(); i++) {
+      View child = layout.getChildAt(i);
+      int visibleHeight = Math.min(child.getBottom(), bottom) - Math.max(child.getTop(), top);
+      if (visibleHeight > 0 && visibleHeight >= threshold * child.getHeight()) {
+        expected.add(child);
+      }
+    }
+    assertEquals("visible children of viewport at " + top, expected, listener.visible);
+  }
+
+  private static class RecordingListener implements FlowVisibilityTracker.Listener {
+
+    final Set<View> visible = new HashSet<View>();
+
+    @Override
+    public void onChildEnter(View child) {
+      assertTrue("entered twice", visible.add(child));
+    }
+
+    @Override
+    public void onChildExit(View child) {
+      assertTrue("exited without enter", visible.remove(child));
+    }
+  }
+}
@@ -0,0 +1,33 @@
+package com.wefika.flowlayout;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import android.view.View;
+
+import com.suan.flowlayout.FlowReflowAnimator;
+
+/**
+ * reflow animator recording animated children instead of starting animators ,which need a
+ * Looper the test thread doesn't have
+ */
+public class RecordingReflowAnimator extends FlowReflowAnimator {
+
+  public final List<View> animated = new ArrayList<View>();
+
+  @Override
+  protected void animateToLayout(View child) {
+    animated.add(child);
+  }
+
+  /**
+   * jump every recorded animation to its end
+   */
+  public void endAnimations() {
+    for (View child : animated) {
+      child.setTranslationX(0);
+      child.setTranslationY(0);
+    }
+    animated.clear();
+  }
+}
@@ -0,0 +1,482 @@
+package com.wefika.flowlayout;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import android.view.View;
+import android.view.View.MeasureSpec;
+import android.view.ViewGroup;
+import android.view.ViewGroup.LayoutParams;
+
+import com.suan.flowlayout.FlowLayout;
+import com.suan.flowlayout.FlowLayout.LayoutParam;
+
+/**
+ * reference implementation of the horizontal and vertical algorithms of {@link FlowLayout},
+ * kept as plain as the original one so every optimized path can be checked against it
+ *
+ * it measures children of given container the same way, but writes child positions into
+ * its own arrays instead of {@link LayoutParam}
+ */
+public class ReferenceFlowLayout {
+
+  private static final int SPACING_NONE = -1;
+
+  private final ViewGroup parent;
+  private final int orientation;
+  private final int gravity;
+  private final int horizontalSpacing;
+  private final int verticalSpacing;
+
+  // result
+  public int[] lefts;
+  public int[] tops;
+  public int measuredWidth;
+  public int measuredHeight;
+  /**
+   * child index of every line (horizontal) or row (vertical)
+   */
+  public List<List<Integer>> lines;
+  public List<Integer> lineSizes;
+
+  // horizontal
+  private int availableWidth;
+  private List<Integer> lineHeightList;
+  private List<Integer> lineWidthList;
+  private int currentLineWidth = 0;
+  private int currentLineHeight = 0;
+  private int maxWidth = 0;
+  private List<Integer> currentLineChildIndex;
+
+  // vertical
+  private int availableHeight;
+  private List<Integer> rowWidthList;
+  private List<Integer> rowHeightList;
+  private int currentRowWidth = 0;
+  private int currentRowHeight = 0;
+  private int maxHeight = 0;
+  private List<Integer> currentRowChildIndex;
+
+  // common
+  private List<Integer> weightChildList;
+  private float totalWeight = 0f;
+  private int lineNum = LayoutParam.LINE_NUM_INVALID;
+
+  public ReferenceFlowLayout(FlowLayout layout) {
+    this.parent = layout;
+    this.orientation = layout.getOrientation();
+    this.gravity = layout.getGravity();
+    this.horizontalSpacing = layout.horizontalSpacing;
+    this.verticalSpacing = layout.verticalSpacing;
+  }
+
+  public void measure(int widthMeasureSpec, int heightMeasureSpec) {
+    lefts = new int[parent.getChildCount()];
+    tops = new int[parent.getChildCount()];
+    switch (orientation) {
+      case FlowLayout.ORIENTATION_HORIZONTAL:
+        measureHorizontally(widthMeasureSpec, heightMeasureSpec);
+        break;
+      case FlowLayout.ORIENTATION_VERTICAL:
+        measureVertically(widthMeasureSpec, heightMeasureSpec);
+        break;
+    }
+  }
+
+  private void measureHorizontally(int widthMeasureSpec, int heightMeasureSpec) {
+    int widthSize = MeasureSpec.getSize(widthMeasureSpec);
+    int heightSize = MeasureSpec.getSize(heightMeasureSpec);
+    int widthMode = MeasureSpec.getMode(widthMeasureSpec);
+    int heightMode = MeasureSpec.getMode(heightMeasureSpec);
+    availableWidth = widthSize - parent.getPaddingLeft() - parent.getPaddingRight();
+    lines = new ArrayList<List<Integer>>();
+    lineHeightList = new ArrayList<Integer>();
+    lineWidthList = new ArrayList<Integer>();
+    weightChildList = new ArrayList<Integer>();
+    maxWidth = 0;
+    lineNum = LayoutParam.LINE_NUM_INVALID;
+    newLine();
+    for (int i = 0; i < parent.getChildCount(); i++) {
+      View child = parent.getChildAt(i);
+      LayoutParam lp = (LayoutParam) child.getLayoutParams();
+
+      int childWidthMode = MeasureSpec.EXACTLY;
+      int childHeightMode = MeasureSpec.EXACTLY;
+
+      int childWidthSize = lp.width;
+      int childHeightSize = lp.height;
+
+      int childHorizontalSpacing = getChildHorizontalSpacing(child);
+      int childVerticalSpacing = getChildVerticalSpacing(child);
+
+      if (heightMode == MeasureSpec.UNSPECIFIED && childHeightSize == 0) {
+        childHeightMode = MeasureSpec.UNSPECIFIED;
+      }
+      if (lp.lineNum != lineNum) {
+        endLine(availableWidth - currentLineWidth);
+        newLine();
+        lineNum = lp.lineNum;
+      }
+
+      if (lp.width == LayoutParams.MATCH_PARENT) {
+        if (currentLineWidth + lp.leftMargin + lp.rightMargin + childHorizontalSpacing
+            <= availableWidth) {
+          childWidthSize =
+              availableWidth - currentLineWidth - lp.leftMargin - lp.rightMargin
+                  - childHorizontalSpacing;
+          currentLineChildIndex.add(i);
+          currentLineWidth = widthSize - parent.getPaddingRight();
+          if (lp.width != LayoutParams.WRAP_CONTENT) {
+            child.measure(MeasureSpec.makeMeasureSpec(childWidthSize, childWidthMode),
+                MeasureSpec.makeMeasureSpec(childHeightSize, childHeightMode));
+            childWidthSize = child.getMeasuredWidth();
+            childHeightSize = child.getMeasuredHeight();
+          }
+          currentLineHeight =
+              Math.max(currentLineHeight, childHeightSize + lp.topMargin + lp.bottomMargin
+                  + childVerticalSpacing);
+          endLine(0);
+          newLine();
+        } else {
+          endLine(0);
+          newLine();
+          childWidthSize = availableWidth - lp.leftMargin - lp.rightMargin - childHorizontalSpacing;
+          currentLineChildIndex.add(i);
+          currentLineWidth = widthSize - parent.getPaddingRight();
+          if (lp.width != LayoutParams.WRAP_CONTENT) {
+            child.measure(MeasureSpec.makeMeasureSpec(childWidthSize, childWidthMode),
+                MeasureSpec.makeMeasureSpec(childHeightSize, childHeightMode));
+            childWidthSize = child.getMeasuredWidth();
+            childHeightSize = child.getMeasuredHeight();
+          }
+          currentLineHeight =
+              Math.max(currentLineHeight, childHeightSize + lp.topMargin + lp.bottomMargin
+                  + childVerticalSpacing);
+          endLine(0);
+          newLine();
+        }
+      } else if (lp.width == 0 && lp.weight != 0) {
+        totalWeight += lp.weight;
+        weightChildList.add(i);
+        currentLineChildIndex.add(i);
+      } else {
+        if (childWidthSize == LayoutParams.WRAP_CONTENT) {
+          child.measure(MeasureSpec.makeMeasureSpec(childWidthSize, childWidthMode),
+              MeasureSpec.makeMeasureSpec(childHeightSize, childHeightMode));
+          childWidthSize = child.getMeasuredWidth();
+          childHeightSize = child.getMeasuredHeight();
+        }
+
+        if (currentLineWidth + lp.leftMargin + childWidthSize + lp.rightMargin
+            + childHorizontalSpacing <= availableWidth) {
+          currentLineChildIndex.add(i);
+          currentLineWidth +=
+              childWidthSize + lp.leftMargin + lp.rightMargin + childHorizontalSpacing;
+          if (lp.width != LayoutParams.WRAP_CONTENT) {
+            child.measure(MeasureSpec.makeMeasureSpec(childWidthSize, childWidthMode),
+                MeasureSpec.makeMeasureSpec(childHeightSize, childHeightMode));
+            childWidthSize = child.getMeasuredWidth();
+            childHeightSize = child.getMeasuredHeight();
+          }
+          if (childWidthSize + lp.leftMargin + lp.rightMargin != 0) {
+            currentLineHeight =
+                Math.max(currentLineHeight, childHeightSize + lp.topMargin + lp.bottomMargin
+                    + childVerticalSpacing);
+          }
+        } else {
+          endLine(availableWidth - currentLineWidth);
+          newLine();
+
+          currentLineChildIndex.add(i);
+          currentLineWidth =
+              childWidthSize + lp.leftMargin + lp.rightMargin + childHorizontalSpacing;
+          if (lp.width != LayoutParams.WRAP_CONTENT) {
+            child.measure(MeasureSpec.makeMeasureSpec(childWidthSize, childWidthMode),
+                MeasureSpec.makeMeasureSpec(childHeightSize, childHeightMode));
+            childWidthSize = child.getMeasuredWidth();
+            childHeightSize = child.getMeasuredHeight();
+          }
+          currentLineHeight =
+              Math.max(currentLineHeight, childHeightSize + lp.topMargin + lp.bottomMargin
+                  + childVerticalSpacing);
+        }
+      }
+    }
+    endLine(availableWidth - currentLineWidth);
+
+    int totalHeight = parent.getPaddingTop();
+    for (int i = 0; i < lines.size(); i++) {
+      List<Integer> currentLineIndexList = lines.get(i);
+      currentLineHeight = lineHeightList.get(i);
+      int currentLineTotalWidth = lineWidthList.get(i);
+      switch (gravity) {
+        case FlowLayout.GRAVITY_CENTER:
+          currentLineWidth = parent.getPaddingLeft() + (availableWidth - currentLineTotalWidth) / 2;
+          break;
+        case FlowLayout.GRAVITY_RIGHT:
+        case FlowLayout.GRAVITY_BOTTOM:
+          currentLineWidth = parent.getPaddingLeft() + (availableWidth - currentLineTotalWidth);
+          break;
+        default:
+          currentLineWidth = parent.getPaddingLeft();
+          break;
+      }
+      for (int childIndex : currentLineIndexList) {
+        View child = parent.getChildAt(childIndex);
+        LayoutParam lp = (LayoutParam) child.getLayoutParams();
+        int childWidth = child.getMeasuredWidth();
+        tops[childIndex] = totalHeight + lp.topMargin + getChildVerticalSpacing(child) / 2;
+        lefts[childIndex] = currentLineWidth + lp.leftMargin + getChildHorizontalSpacing(child) / 2;
+        currentLineWidth += (lp.leftMargin + childWidth + lp.rightMargin);
+      }
+      totalHeight += currentLineHeight;
+    }
+    lineSizes = lineHeightList;
+
+    measuredWidth = (widthMode == MeasureSpec.UNSPECIFIED || widthMode == MeasureSpec.AT_MOST)
+        ? maxWidth + parent.getPaddingRight() + parent.getPaddingLeft() : widthSize;
+    measuredHeight = (heightMode == MeasureSpec.UNSPECIFIED || heightMode == MeasureSpec.AT_MOST)
+        ? totalHeight + parent.getPaddingBottom() : heightSize;
+  }
+
+  private void endLine(int extraSpacing) {
+    measureWeightChildHorizontal(extraSpacing);
+    int currentLineTotalWidth = 0;
+    for (int childIndex : currentLineChildIndex) {
+      currentLineTotalWidth += parent.getChildAt(childIndex).getMeasuredWidth();
+    }
+    lineWidthList.add(currentLineTotalWidth);
+    lines.add(currentLineChildIndex);
+    lineHeightList.add(currentLineHeight);
+    maxWidth = Math.max(currentLineWidth, maxWidth);
+  }
+
+  private void newLine() {
+    currentLineChildIndex = new ArrayList<Integer>();
+    currentLineHeight = 0;
+    currentLineWidth = parent.getPaddingLeft();
+    totalWeight = 0;
+  }
+
+  private void measureWeightChildHorizontal(int extraSpacing) {
+    while (weightChildList.size() > 0) {
+      View weightChild = parent.getChildAt(weightChildList.remove(0));
+      LayoutParam lp = (LayoutParam) weightChild.getLayoutParams();
+      int childWidthSize = (int) (lp.weight / totalWeight * extraSpacing);
+      int childHeightSize = lp.height;
+      if (childWidthSize + lp.leftMargin + lp.rightMargin != 0) {
+        currentLineHeight =
+            Math.max(currentLineHeight, childHeightSize + lp.topMargin + lp.bottomMargin);
+      }
+      weightChild.measure(MeasureSpec.makeMeasureSpec(childWidthSize, MeasureSpec.EXACTLY),
+          MeasureSpec.makeMeasureSpec(childHeightSize, MeasureSpec.EXACTLY));
+    }
+  }
+
+  private void measureVertically(int widthMeasureSpec, int heightMeasureSpec) {
+    int widthSize = MeasureSpec.getSize(widthMeasureSpec);
+    int heightSize = MeasureSpec.getSize(heightMeasureSpec);
+    int widthMode = MeasureSpec.getMode(widthMeasureSpec);
+    int heightMode = MeasureSpec.getMode(heightMeasureSpec);
+    availableHeight = heightSize - parent.getPaddingTop() - parent.getPaddingBottom();
+
+    weightChildList = new ArrayList<Integer>();
+    lines = new ArrayList<List<Integer>>();
+    rowWidthList = new ArrayList<Integer>();
+    rowHeightList = new ArrayList<Integer>();
+
+    maxHeight = 0;
+    newRow();
+    for (int i = 0; i < parent.getChildCount(); i++) {
+      View child = parent.getChildAt(i);
+      LayoutParam lp = (LayoutParam) child.getLayoutParams();
+
+      int childWidthMode = MeasureSpec.EXACTLY;
+      int childHeightMode = MeasureSpec.EXACTLY;
+
+      int childWidthSize = lp.width;
+      int childHeightSize = lp.height;
+
+      int childHorizontalSpacing = getChildHorizontalSpacing(child);
+      int childVerticalSpacing = getChildVerticalSpacing(child);
+
+      if (widthMode == MeasureSpec.UNSPECIFIED && childWidthSize == 0) {
+        childWidthMode = MeasureSpec.UNSPECIFIED;
+      }
+      if (lp.lineNum != lineNum) {
+        endRow(availableHeight - currentRowHeight);
+        newRow();
+        lineNum = lp.lineNum;
+      }
+      if (lp.height == LayoutParams.MATCH_PARENT) {
+        if (currentRowHeight + lp.topMargin + lp.height + lp.bottomMargin + childVerticalSpacing
+            <= availableHeight) {
+          childHeightSize =
+              availableHeight - currentRowHeight - lp.topMargin - lp.bottomMargin
+                  - childVerticalSpacing;
+          currentRowChildIndex.add(i);
+          currentRowHeight = heightSize - parent.getPaddingBottom();
+
+          if (lp.height != LayoutParams.WRAP_CONTENT) {
+            child.measure(MeasureSpec.makeMeasureSpec(childWidthSize, childWidthMode),
+                MeasureSpec.makeMeasureSpec(childHeightSize, childHeightMode));
+            childWidthSize = child.getMeasuredWidth();
+            childHeightSize = child.getMeasuredHeight();
+          }
+          currentRowWidth =
+              Math.max(currentRowWidth, childWidthSize + lp.leftMargin + lp.rightMargin
+                  + childHorizontalSpacing);
+          endRow(0);
+          newRow();
+        } else {
+          endRow(0);
+          newRow();
+
+          childHeightSize = availableHeight - lp.topMargin - lp.bottomMargin - childVerticalSpacing;
+          currentRowChildIndex.add(i);
+          currentRowHeight = heightSize - parent.getPaddingBottom();
+          if (lp.height != LayoutParams.WRAP_CONTENT) {
+            child.measure(MeasureSpec.makeMeasureSpec(childWidthSize, childWidthMode),
+                MeasureSpec.makeMeasureSpec(childHeightSize, childHeightMode));
+            childWidthSize = child.getMeasuredWidth();
+            childHeightSize = child.getMeasuredHeight();
+          }
+          currentRowWidth =
+              Math.max(currentRowWidth, childWidthSize + lp.leftMargin + lp.rightMargin
+                  + childHorizontalSpacing);
+          endRow(0);
+          newRow();
+        }
+      } else if (lp.height == 0 && lp.weight != 0) {
+        currentRowChildIndex.add(i);
+        totalWeight += lp.weight;
+        weightChildList.add(i);
+      } else {
+        if (childHeightSize == LayoutParams.WRAP_CONTENT) {
+          child.measure(MeasureSpec.makeMeasureSpec(childWidthSize, childWidthMode),
+              MeasureSpec.makeMeasureSpec(childHeightSize, childHeightMode));
+          childWidthSize = child.getMeasuredWidth();
+          childHeightSize = child.getMeasuredHeight();
+        }
+        if (currentRowHeight + lp.topMargin + childHeightSize + lp.bottomMargin
+            + childVerticalSpacing <= availableHeight) {
+          currentRowChildIndex.add(i);
+          currentRowHeight +=
+              childHeightSize + lp.topMargin + lp.bottomMargin + childVerticalSpacing;
+
+          if (lp.height != LayoutParams.WRAP_CONTENT) {
+            child.measure(MeasureSpec.makeMeasureSpec(childWidthSize, childWidthMode),
+                MeasureSpec.makeMeasureSpec(childHeightSize, childHeightMode));
+            childWidthSize = child.getMeasuredWidth();
+            childHeightSize = child.getMeasuredHeight();
+          }
+          if (childHeightSize + lp.topMargin + lp.bottomMargin != 0) {
+            currentRowWidth =
+                Math.max(currentRowWidth, childWidthSize + lp.leftMargin + lp.rightMargin
+                    + childHorizontalSpacing);
+          }
+        } else {
+          endRow(availableHeight - currentRowHeight);
+          newRow();
+
+          currentRowChildIndex.add(i);
+          currentRowHeight =
+              childHeightSize + lp.topMargin + lp.bottomMargin + childVerticalSpacing;
+
+          if (lp.height != LayoutParams.WRAP_CONTENT) {
+            child.measure(MeasureSpec.makeMeasureSpec(childWidthSize, childWidthMode),
+                MeasureSpec.makeMeasureSpec(childHeightSize, childHeightMode));
+            childWidthSize = child.getMeasuredWidth();
+            childHeightSize = child.getMeasuredHeight();
+          }
+          currentRowWidth =
+              Math.max(currentRowWidth, childWidthSize + lp.leftMargin + lp.rightMargin
+                  + childHorizontalSpacing);
+        }
+      }
+    }
+    endRow(availableHeight - currentRowHeight);
+
+    int totalWidth = parent.getPaddingLeft();
+    for (int i = 0; i < lines.size(); i++) {
+      List<Integer> currentRowIndexList = lines.get(i);
+      currentRowWidth = rowWidthList.get(i);
+
+      int currentRowTotalHeight = rowHeightList.get(i);
+      switch (gravity) {
+        case FlowLayout.GRAVITY_CENTER:
+          currentRowHeight = parent.getPaddingTop() + (availableHeight - currentRowTotalHeight) / 2;
+          break;
+        case FlowLayout.GRAVITY_RIGHT:
+        case FlowLayout.GRAVITY_BOTTOM:
+          currentRowHeight = parent.getPaddingTop() + (availableHeight - currentRowTotalHeight);
+          break;
+        default:
+          currentRowHeight = parent.getPaddingTop();
+          break;
+      }
+
+      for (int childIndex : currentRowIndexList) {
+        View child = parent.getChildAt(childIndex);
+        LayoutParam lp = (LayoutParam) child.getLayoutParams();
+        int childHeight = child.getMeasuredHeight();
+        tops[childIndex] = currentRowHeight + lp.topMargin + getChildVerticalSpacing(child) / 2;
+        lefts[childIndex] = totalWidth + lp.leftMargin + getChildHorizontalSpacing(child) / 2;
+        currentRowHeight += (lp.topMargin + childHeight + lp.bottomMargin);
+      }
+      totalWidth += currentRowWidth;
+    }
+    lineSizes = rowWidthList;
+
+    measuredWidth = (widthMode == MeasureSpec.UNSPECIFIED || widthMode == MeasureSpec.AT_MOST)
+        ? totalWidth + parent.getPaddingRight() : widthSize;
+    measuredHeight = (heightMode == MeasureSpec.UNSPECIFIED || heightMode == MeasureSpec.AT_MOST)
+        ? maxHeight + parent.getPaddingLeft() + parent.getPaddingBottom() : heightSize;
+  }
+
+  private void endRow(int extraSpacing) {
+    measureWeightChildVertically(extraSpacing);
+    int currentRowTotalHeight = 0;
+    for (int childIndex : currentRowChildIndex) {
+      currentRowTotalHeight += parent.getChildAt(childIndex).getMeasuredHeight();
+    }
+    rowHeightList.add(currentRowTotalHeight);
+    lines.add(currentRowChildIndex);
+    rowWidthList.add(currentRowWidth);
+    maxHeight = Math.max(currentRowHeight, maxHeight);
+  }
+
+  private void newRow() {
+    currentRowChildIndex = new ArrayList<Integer>();
+    currentRowWidth = 0;
+    currentRowHeight = parent.getPaddingTop();
+    totalWeight = 0;
+  }
+
+  private void measureWeightChildVertically(int extraSpacing) {
+    while (weightChildList.size() > 0) {
+      View weightChild = parent.getChildAt(weightChildList.remove(0));
+      LayoutParam lp = (LayoutParam) weightChild.getLayoutParams();
+      int childHeightSize = (int) (lp.weight / totalWeight * extraSpacing);
+      int childWidthSize = lp.width;
+      if (childHeightSize + lp.topMargin + lp.bottomMargin != 0) {
+        currentRowWidth =
+            Math.max(currentRowWidth, childWidthSize + lp.leftMargin + lp.rightMargin);
+      }
+      weightChild.measure(MeasureSpec.makeMeasureSpec(childWidthSize, MeasureSpec.EXACTLY),
+          MeasureSpec.makeMeasureSpec(childHeightSize, MeasureSpec.EXACTLY));
+    }
+  }
+
+  private int getChildHorizontalSpacing(View child) {
+    LayoutParam lp = (LayoutParam) child.getLayoutParams();
+    int childHorizontalSpacing = horizontalSpacing == SPACING_NONE ? 0 : horizontalSpacing;
+    return lp.horizontalSpacing == SPACING_NONE ? childHorizontalSpacing : lp.horizontalSpacing;
+  }
+
+  private int getChildVerticalSpacing(View child) {
+    LayoutParam lp = (LayoutParam) child.getLayoutParams();
+    int childVerticalSpacing = verticalSpacing == SPACING_NONE ? 0 : verticalSpacing;
+    return lp.verticalSpacing == SPACING_NONE ? childVerticalSpacing : lp.verticalSpacing;
+  }
+}
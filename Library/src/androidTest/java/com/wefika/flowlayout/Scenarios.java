@@ -0,0 +1,101 @@
+package com.wefika.flowlayout;
+
+import java.util.Random;
+
+import android.content.Context;
+import android.view.View.MeasureSpec;
+import android.view.ViewGroup.LayoutParams;
+
+import com.suan.flowlayout.FlowLayout;
+import com.suan.flowlayout.FlowLayout.LayoutParam;
+
+/**
+ * scenarios mirroring the Example activities ,sizes are in pixel so they don't depend on device
+ */
+public class Scenarios {
+
+  public static final int WIDTH = 1080;
+  public static final int WIDTH_MEASURE_SPEC =
+      MeasureSpec.makeMeasureSpec(WIDTH, MeasureSpec.EXACTLY);
+  // FlowLayout is placed in a ScrollView in every example
+  public static final int HEIGHT_MEASURE_SPEC =
+      MeasureSpec.makeMeasureSpec(0, MeasureSpec.UNSPECIFIED);
+
+  public static final int CRAZY_CHILD_COUNT = 400;
+
+  /**
+   * NormalFlowActivity ,fixed size children in lineNum groups
+   */
+  public static CountingFlowLayout normalFlow(Context context) {
+    CountingFlowLayout layout = new CountingFlowLayout(context);
+    layout.horizontalSpacing = 20;
+    layout.verticalSpacing = 20;
+    addChild(layout, LayoutParams.MATCH_PARENT, 240, LayoutParam.LINE_NUM_INVALID, 0);
+    int[] widths = {300, 450, 270, 510, 300};
+    for (int i = 0; i < 60; i++) {
+      addChild(layout, widths[i % widths.length], 150, i < 30 ? 1 : 2, 0);
+    }
+    return layout;
+  }
+
+  /**
+   * GravityWeightActivity ,WRAP_CONTENT ,MATCH_PARENT and weight children with center gravity
+   */
+  public static CountingFlowLayout gravityWeight(Context context) {
+    CountingFlowLayout layout = new CountingFlowLayout(context);
+    layout.setGravity(FlowLayout.GRAVITY_CENTER);
+    for (int i = 0; i < 10; i++) {
+      addChild(layout, LayoutParams.WRAP_CONTENT, 240, LayoutParam.LINE_NUM_INVALID, 0);
+      addChild(layout, 270, 240, LayoutParam.LINE_NUM_INVALID, 0);
+      addChild(layout, 0, 510, LayoutParam.LINE_NUM_INVALID, 2);
+      addChild(layout, LayoutParams.MATCH_PARENT, 240, LayoutParam.LINE_NUM_INVALID, 0);
+    }
+    return layout;
+  }
+
+  /**
+   * LineNumActivity ,weight children sharing explicit lines
+   */
+  public static CountingFlowLayout lineNum(Context context) {
+    CountingFlowLayout layout = new CountingFlowLayout(context);
+    layout.setGravity(FlowLayout.GRAVITY_CENTER);
+    addChild(layout, LayoutParams.WRAP_CONTENT, 240, LayoutParam.LINE_NUM_INVALID, 0);
+    addChild(layout, LayoutParams.MATCH_PARENT, 510, 1, 0);
+    for (int line = 2; line < 12; line++) {
+      for (int i = 0; i < line % 4 + 1; i++) {
+        addChild(layout, 0, 240, line, 1);
+      }
+    }
+    return layout;
+  }
+
+  /**
+   * CrazyActivity ,empty container children are appended to one by one
+   */
+  public static CountingFlowLayout crazy(Context context) {
+    CountingFlowLayout layout = new CountingFlowLayout(context);
+    layout.setGravity(FlowLayout.GRAVITY_RIGHT);
+    return layout;
+  }
+
+  public static TestChildView crazyChild(Context context, Random random) {
+    TestChildView child = new TestChildView(context, 0, 0);
+    child.setLayoutParams(new LayoutParam((int) (random.nextFloat() * 1200f), 150));
+    return child;
+  }
+
+  public static TestChildView addChild(FlowLayout layout, int width, int height, int lineNum,
+      float weight) {
+    TestChildView child = new TestChildView(layout.getContext(), 360, 120);
+    LayoutParam lp = new LayoutParam(width, height);
+    lp.lineNum = lineNum;
+    lp.weight = weight;
+    layout.addView(child, lp);
+    return child;
+  }
+
+  public static void measure(FlowLayout layout) {
+    layout.measure(WIDTH_MEASURE_SPEC, HEIGHT_MEASURE_SPEC);
+    layout.layout(0, 0, layout.getMeasuredWidth(), layout.getMeasuredHeight());
+  }
+}
@@ -0,0 +1,46 @@
+package com.wefika.flowlayout;
+
+import android.content.Context;
+import android.view.View;
+
+/**
+ * child with a fixed intrinsic size ,counting how many times it is measured and laid out
+ */
+public class TestChildView extends View {
+
+  public int measureCount = 0;
+  public int layoutCount = 0;
+  private int intrinsicWidth;
+  private int intrinsicHeight;
+
+  public TestChildView(Context context, int intrinsicWidth, int intrinsicHeight) {
+    super(context);
+    this.intrinsicWidth = intrinsicWidth;
+    this.intrinsicHeight = intrinsicHeight;
+  }
+
+  /**
+   * change intrinsic size the way a TextView changes with its text
+   */
+  public void setIntrinsicSize(int intrinsicWidth, int intrinsicHeight) {
+    this.intrinsicWidth = intrinsicWidth;
+    this.intrinsicHeight = intrinsicHeight;
+    requestLayout();
+  }
+
+  @Override
+  protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+    measureCount++;
+    setMeasuredDimension(resolveSize(intrinsicWidth, widthMeasureSpec),
+        resolveSize(intrinsicHeight, heightMeasureSpec));
+  }
+
+  /**
+   * counted here since onLayout is skipped when the frame is unchanged
+   */
+  @Override
+  public void layout(int l, int t, int r, int b) {
+    layoutCount++;
+    super.layout(l, t, r, b);
+  }
+}
@@ -0,0 +1,37 @@
+package com.wefika.flowlayout;
+
+import android.content.Context;
+import android.graphics.Point;
+import android.graphics.Rect;
+
+/**
+ * FlowLayout seen through a viewport of VIEWPORT_HEIGHT at viewportTop ,as if it was scrolled
+ * in a ScrollView
+ */
+public class ViewportFlowLayout extends CountingFlowLayout {
+
+  public static final int VIEWPORT_HEIGHT = 700;
+
+  /**
+   * far below every child by default ,so nothing is visible
+   */
+  public int viewportTop = 100000;
+  /**
+   * times viewport was looked up ,e.g. to find placeholders near it
+   */
+  public int viewportLookupCount = 0;
+
+  public ViewportFlowLayout(Context context) {
+    super(context);
+  }
+
+  @Override
+  public boolean getGlobalVisibleRect(Rect r, Point globalOffset) {
+    viewportLookupCount++;
+    if (globalOffset != null) {
+      globalOffset.set(0, 0);
+    }
+    r.set(0, 0, getWidth(), getHeight());
+    return r.intersect(0, viewportTop, getWidth(), viewportTop + VIEWPORT_HEIGHT);
+  }
+}
@@ -0,0 +1,99 @@
+package com.suan.flowlayout;
+
+import android.graphics.drawable.Drawable;
+import android.os.Build;
+import android.text.Layout;
+import android.text.TextPaint;
+import android.text.method.TransformationMethod;
+import android.view.ViewGroup;
+import android.widget.TextView;
+
+/**
+ * function for this class:
+ * bind text to chip children (single line TextView) of FlowLayout with their width taken from
+ * {@link ChipWidthCache}, so neither FlowLayout nor a rebind runs text measurement again for a
+ * text that has been seen
+ *
+ * width is the one TextView measures for WRAP_CONTENT: shown text (after transformation, e.g.
+ * textAllCaps) or hint if wider, with compound padding, within min/max width and not less than
+ * minimum width of chip and its background
+ * on API before 16 minWidth, maxWidth, minEms, maxEms and minimum width of a View can't be read,
+ * so chips using them must not be bound there
+ */
+public class ChipHelper {
+
+  /**
+   * width of chip showing given text
+   */
+  public static int getChipWidth(TextView chip, CharSequence text) {
+    ChipWidthCache cache = ChipWidthCache.getInstance(chip.getContext());
+    TextPaint paint = chip.getPaint();
+    int horizontalPadding = chip.getCompoundPaddingLeft() + chip.getCompoundPaddingRight();
+    TransformationMethod transformation = chip.getTransformationMethod();
+    CharSequence shownText =
+        transformation == null ? text : transformation.getTransformation(text, chip);
+    int width = getTextWidth(cache, paint, shownText, horizontalPadding);
+    CharSequence hint = chip.getHint();
+    if (hint != null) {
+      width = Math.max(width, getTextWidth(cache, paint, hint, horizontalPadding));
+    }
+    return applyWidthLimits(chip, width);
+  }
+
+  /**
+   * width of given text with compound padding ,measured only when absent from cache
+   */
+  private static int getTextWidth(ChipWidthCache cache, TextPaint paint, CharSequence text,
+      int horizontalPadding) {
+    int width = cache.get(text, paint.getTextSize(), paint.getTypeface(), paint.getTextScaleX(),
+        horizontalPadding);
+    if (width < 0) {
+      // same as TextView does for WRAP_CONTENT
+      width = (int) Math.ceil(Layout.getDesiredWidth(text, paint)) + horizontalPadding;
+      cache.put(text, paint.getTextSize(), paint.getTypeface(), paint.getTextScaleX(),
+          horizontalPadding, width);
+    }
+    return width;
+  }
+
+  /**
+   * limits of chip are applied out of cache ,so chips with other limits share the same entry
+   */
+  private static int applyWidthLimits(TextView chip, int width) {
+    if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+      // only one of pixel and ems limit is set ,the other one is -1
+      int maxWidth = chip.getMaxWidth();
+      width = Math.min(width, maxWidth >= 0 ? maxWidth : chip.getMaxEms() * chip.getLineHeight());
+      int minWidth = chip.getMinWidth();
+      width = Math.max(width, minWidth >= 0 ? minWidth : chip.getMinEms() * chip.getLineHeight());
+      width = Math.max(width, chip.getMinimumWidth());
+    }
+    Drawable background = chip.getBackground();
+    if (background != null) {
+      width = Math.max(width, background.getMinimumWidth());
+    }
+    return width;
+  }
+
+  /**
+   * set text of chip and fix its width ,FlowLayout then flows it by LayoutParam width and
+   * measures it only once with an exact spec ,a chip already in a FlowLayout is reported to it
+   * so only lines from its own on are flowed again
+   */
+  public static void bind(TextView chip, CharSequence text) {
+    int width = getChipWidth(chip, text);
+    if (chip.getParent() instanceof FlowLayout) {
+      ((FlowLayout) chip.getParent()).requestChildLayout(chip);
+    }
+    ViewGroup.LayoutParams lp = chip.getLayoutParams();
+    if (lp == null) {
+      chip.setLayoutParams(
+          new FlowLayout.LayoutParam(width, ViewGroup.LayoutParams.WRAP_CONTENT));
+    } else if (lp.width != width) {
+      // setText only invalidates a chip of fixed width whose height stays ,so request layout
+      lp.width = width;
+      chip.setLayoutParams(lp);
+    }
+    chip.setText(text);
+  }
+}
@@ -0,0 +1,229 @@
+package com.suan.flowlayout;
+
+import java.util.Locale;
+
+import android.content.ComponentCallbacks;
+import android.content.Context;
+import android.content.res.Configuration;
+import android.graphics.Typeface;
+import android.util.LruCache;
+
+/**
+ * function for this class:
+ * process-wide LRU cache of chip widths, so the same tag text is measured by text layout only
+ * once, no matter how many FlowLayout show it or how many times they remeasure
+ *
+ * key is (text, text size, typeface, text scale, horizontal padding), value is the width of
+ * whole chip in pixel
+ *
+ * cache is bounded by estimated memory of its entries and is cleared when font scale or locale
+ * changes, since every width becomes stale then
+ *
+ * shared cache of {@link #getInstance(Context)} lives as long as the process, a cache made with
+ * the constructor listens to configuration changes until {@link #release()} is called
+ */
+public class ChipWidthCache {
+
+  /**
+   * default memory limit in bytes
+   */
+  public static final int DEFAULT_MAX_BYTES = 256 * 1024;
+
+  /**
+   * estimated memory of one entry without its text
+   */
+  private static final int ENTRY_OVERHEAD_BYTES = 64;
+
+  private static ChipWidthCache instance;
+
+  private final LruCache<Key, Integer> cache;
+  private final Context context;
+  private final ComponentCallbacks componentCallbacks = new ComponentCallbacks() {
+    @Override
+    public void onConfigurationChanged(Configuration newConfig) {
+      onConfigurationChange(newConfig);
+    }
+
+    @Override
+    public void onLowMemory() {
+      invalidate();
+    }
+  };
+  /**
+   * reused for lookup ,so a hit doesn't allocate ,guarded by cache
+   */
+  private final Key lookupKey = new Key();
+  private float fontScale;
+  private Locale locale;
+  private int invalidationCount = 0;
+
+  public static synchronized ChipWidthCache getInstance(Context context) {
+    if (instance == null) {
+      instance = new ChipWidthCache(context.getApplicationContext(), DEFAULT_MAX_BYTES);
+    }
+    return instance;
+  }
+
+  public ChipWidthCache(Context context, int maxBytes) {
+    cache = new LruCache<Key, Integer>(maxBytes) {
+      @Override
+      protected int sizeOf(Key key, Integer value) {
+        return ENTRY_OVERHEAD_BYTES + key.text.length() * 2;
+      }
+    };
+    Configuration configuration = context.getResources().getConfiguration();
+    fontScale = configuration.fontScale;
+    locale = configuration.locale;
+    this.context = context;
+    context.registerComponentCallbacks(componentCallbacks);
+  }
+
+  /**
+   * stop listening to configuration changes and drop every width ,the callbacks registered on
+   * the application would keep this cache alive otherwise ,not needed for the shared cache
+   */
+  public void release() {
+    context.unregisterComponentCallbacks(componentCallbacks);
+    invalidate();
+  }
+
+  /**
+   * @return cached width ,or -1 if absent
+   */
+  public int get(CharSequence text, float textSize, Typeface typeface, float textScaleX,
+      int horizontalPadding) {
+    synchronized (cache) {
+      lookupKey.set(text, textSize, typeface, textScaleX, horizontalPadding);
+      Integer width = cache.get(lookupKey);
+      lookupKey.text = null;
+      return width == null ? -1 : width;
+    }
+  }
+
+  public void put(CharSequence text, float textSize, Typeface typeface, float textScaleX,
+      int horizontalPadding, int width) {
+    Key key = new Key();
+    key.set(text.toString(), textSize, typeface, textScaleX, horizontalPadding);
+    synchronized (cache) {
+      cache.put(key, width);
+    }
+  }
+
+  /**
+   * drop every width ,they will be measured again on next use
+   */
+  public void invalidate() {
+    synchronized (cache) {
+      cache.evictAll();
+      invalidationCount++;
+    }
+  }
+
+  private void onConfigurationChange(Configuration newConfig) {
+    boolean changed;
+    synchronized (cache) {
+      changed = newConfig.fontScale != fontScale
+          || (newConfig.locale == null ? locale != null : !newConfig.locale.equals(locale));
+      fontScale = newConfig.fontScale;
+      locale = newConfig.locale;
+    }
+    if (changed) {
+      invalidate();
+    }
+  }
+
+  public int hitCount() {
+    return cache.hitCount();
+  }
+
+  public int missCount() {
+    return cache.missCount();
+  }
+
+  public float hitRate() {
+    int hit = cache.hitCount();
+    int total = hit + cache.missCount();
+    return total == 0 ? 0f : (float) hit / total;
+  }
+
+  public int evictionCount() {
+    return cache.evictionCount();
+  }
+
+  public int invalidationCount() {
+    synchronized (cache) {
+      return invalidationCount;
+    }
+  }
+
+  /**
+   * estimated memory of cached entries in bytes
+   */
+  public int size() {
+    return cache.size();
+  }
+
+  public int maxSize() {
+    return cache.maxSize();
+  }
+
+  private static final class Key {
+
+    CharSequence text;
+    float textSize;
+    Typeface typeface;
+    float textScaleX;
+    int horizontalPadding;
+
+    void set(CharSequence text, float textSize, Typeface typeface, float textScaleX,
+        int horizontalPadding) {
+      this.text = text;
+      this.textSize = textSize;
+      this.typeface = typeface;
+      this.textScaleX = textScaleX;
+      this.horizontalPadding = horizontalPadding;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof Key)) {
+        return false;
+      }
+      Key key = (Key) o;
+      return textSize == key.textSize
+          && textScaleX == key.textScaleX
+          && horizontalPadding == key.horizontalPadding
+          && typeface == key.typeface
+          && contentEquals(text, key.text);
+    }
+
+    @Override
+    public int hashCode() {
+      // same as String.hashCode ,so lookup by CharSequence finds entries keyed by String
+      int hash = 0;
+      for (int i = 0; i < text.length(); i++) {
+        hash = 31 * hash + text.charAt(i);
+      }
+      hash = 31 * hash + Float.floatToIntBits(textSize);
+      hash = 31 * hash + (typeface == null ? 0 : typeface.hashCode());
+      hash = 31 * hash + Float.floatToIntBits(textScaleX);
+      hash = 31 * hash + horizontalPadding;
+      return hash;
+    }
+
+    private static boolean contentEquals(CharSequence a, CharSequence b) {
+      if (a.length() != b.length()) {
+        return false;
+      }
+      for (int i = 0; i < a.length(); i++) {
+        if (a.charAt(i) != b.charAt(i)) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+}
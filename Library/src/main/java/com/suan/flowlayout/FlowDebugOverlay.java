@@ -0,0 +1,173 @@
+package com.suan.flowlayout;
+
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.view.View;
+import android.view.ViewGroup.LayoutParams;
+
+/**
+ * function for this class:
+ * debug overlay of FlowLayout ,only created when enabled
+ *
+ * draws bounds of every line ,spacing gutters around children and child index ,lines are
+ * colored by measure time or by where they came from
+ */
+final class FlowDebugOverlay {
+
+  private static final int LINE_BOUND_COLOR = Color.argb(200, 255, 255, 255);
+  private static final int GUTTER_COLOR = Color.argb(80, 128, 128, 128);
+  private static final int SOURCE_HINT_COLOR = Color.argb(64, 0, 128, 255);
+  private static final int SOURCE_CACHED_COLOR = Color.argb(64, 128, 128, 128);
+  private static final int SOURCE_REFLOWED_COLOR = Color.argb(64, 255, 160, 0);
+  private static final int TEXT_SIZE_DIP = 10;
+
+  private final Paint fillPaint = new Paint();
+  private final Paint strokePaint = new Paint();
+  private final Paint textPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+  private int colorMode = FlowLayout.DEBUG_COLOR_BY_COST;
+
+  /**
+   * measure time of every line ,in nano second ,lines kept from an earlier pass keep their time
+   */
+  private long[] lineCost = new long[16];
+  /**
+   * measure time of lines flowed in current pass from passFirstLine on ,they are put in lineCost
+   * once kept lines were moved to their new place
+   */
+  private long[] passCost = new long[16];
+  private int passFirstLine = 0;
+  private int passLineEnd = 0;
+  private long lineStartTime = 0;
+
+  FlowDebugOverlay(float density) {
+    fillPaint.setStyle(Paint.Style.FILL);
+    strokePaint.setStyle(Paint.Style.STROKE);
+    strokePaint.setColor(LINE_BOUND_COLOR);
+    strokePaint.setStrokeWidth(density);
+    textPaint.setColor(Color.WHITE);
+    textPaint.setTextSize(TEXT_SIZE_DIP * density);
+  }
+
+  void setColorMode(int colorMode) {
+    this.colorMode = colorMode;
+  }
+
+  /**
+   * called before lines from given one on are flowed
+   */
+  void beginPass(int firstLine) {
+    passFirstLine = firstLine;
+    passLineEnd = firstLine;
+  }
+
+  void startLine() {
+    lineStartTime = System.nanoTime();
+  }
+
+  void endLine(int line) {
+    int index = line - passFirstLine;
+    passCost = ensureCapacity(passCost, index + 1);
+    passCost[index] = System.nanoTime() - lineStartTime;
+    passLineEnd = Math.max(passLineEnd, line + 1);
+  }
+
+  /**
+   * lines of last pass from given one on are kept and moved by delta lines
+   */
+  void moveLines(int from, int delta) {
+    if (delta == 0 || from >= lineCost.length) {
+      return;
+    }
+    int length = lineCost.length - from;
+    lineCost = ensureCapacity(lineCost, from + delta + length);
+    System.arraycopy(lineCost, from, lineCost, from + delta, length);
+  }
+
+  /**
+   * called once flowed lines and kept ones are in place
+   */
+  void endPass() {
+    int length = passLineEnd - passFirstLine;
+    lineCost = ensureCapacity(lineCost, passLineEnd);
+    System.arraycopy(passCost, 0, lineCost, passFirstLine, length);
+  }
+
+  private static long[] ensureCapacity(long[] array, int capacity) {
+    if (capacity <= array.length) {
+      return array;
+    }
+    long[] newArray = new long[Math.max(capacity, array.length * 2)];
+    System.arraycopy(array, 0, newArray, 0, array.length);
+    return newArray;
+  }
+
+  void draw(FlowLayout layout, Canvas canvas) {
+    int lineCount = layout.getLineCount();
+    long maxCost = 1;
+    for (int line = 0; line < lineCount && line < lineCost.length; line++) {
+      maxCost = Math.max(maxCost, lineCost[line]);
+    }
+    int left = layout.getPaddingLeft();
+    int right = layout.getWidth() - layout.getPaddingRight();
+    for (int line = 0; line < lineCount; line++) {
+      int top = layout.getLineTop(line);
+      int bottom = layout.getLineBottom(line);
+      fillPaint.setColor(getLineColor(layout, line, maxCost));
+      canvas.drawRect(left, top, right, bottom, fillPaint);
+      canvas.drawRect(left, top, right, bottom, strokePaint);
+    }
+
+    fillPaint.setColor(GUTTER_COLOR);
+    int childCount = layout.getChildCount();
+    for (int i = 0; i < childCount; i++) {
+      View child = layout.getChildAt(i);
+      if (child.getVisibility() == View.GONE) {
+        continue;
+      }
+      FlowLayout.LayoutParam lp = (FlowLayout.LayoutParam) child.getLayoutParams();
+      int horizontalSpacing = layout.getChildHorizontalSpacing(child);
+      int verticalSpacing = layout.getChildVerticalSpacing(child);
+      int childLeft = child.getLeft();
+      int childTop = child.getTop();
+      int childRight = child.getRight();
+      int childBottom = child.getBottom();
+      // spacing taken on every side of child
+      canvas.drawRect(childLeft - horizontalSpacing / 2, childTop, childLeft, childBottom,
+          fillPaint);
+      canvas.drawRect(childRight, childTop, childRight + horizontalSpacing / 2, childBottom,
+          fillPaint);
+      canvas.drawRect(childLeft, childTop - verticalSpacing / 2, childRight, childTop, fillPaint);
+      canvas.drawRect(childLeft, childBottom, childRight, childBottom + verticalSpacing / 2,
+          fillPaint);
+
+      String label = String.valueOf(i);
+      if (lp.width == LayoutParams.MATCH_PARENT || lp.height == LayoutParams.MATCH_PARENT) {
+        label += " M";
+      } else if (lp.weight > 0) {
+        label += " W";
+      }
+      canvas.drawText(label, childLeft, childTop + textPaint.getTextSize(), textPaint);
+    }
+  }
+
+  private int getLineColor(FlowLayout layout, int line, long maxCost) {
+    if (colorMode == FlowLayout.DEBUG_COLOR_BY_SOURCE) {
+      int end = Math.min(layout.getLineEnd(line), layout.getChildCount());
+      for (int i = layout.getLineStart(line); i < end; i++) {
+        if (layout.getChildAt(i) instanceof FlowPlaceholder) {
+          return SOURCE_HINT_COLOR;
+        }
+      }
+      // lines before the first flowed one and after the last one were kept
+      return line < layout.getFirstReflowedLine() || line >= layout.getReflowedLineEnd()
+          ? SOURCE_CACHED_COLOR : SOURCE_REFLOWED_COLOR;
+    }
+    if (line >= lineCost.length) {
+      return SOURCE_CACHED_COLOR;
+    }
+    // green for cheap line ,red for the most expensive one
+    float ratio = (float) lineCost[line] / maxCost;
+    return Color.argb(64, (int) (255 * ratio), (int) (255 * (1 - ratio)), 0);
+  }
+}
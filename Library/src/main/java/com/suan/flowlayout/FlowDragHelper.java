@@ -0,0 +1,211 @@
+package com.suan.flowlayout;
+
+import android.view.MotionEvent;
+import android.view.View;
+import android.view.ViewTreeObserver;
+
+/**
+ * function for this class:
+ * reorder children of FlowLayout by dragging one of them
+ *
+ * drop slot is found by line table of FlowLayout ,the line under the finger and then the first
+ * child in it whose center is right of the finger ,and the child is moved there with
+ * {@link FlowLayout#moveView(int, int)} ,so each hover step only flows the lines between old and
+ * new index again and displaced children slide to their new place with reflow animation
+ *
+ * dragged child follows the finger by translation and is drawn above the others
+ * only horizontal orientation has a line table ,nothing is reordered in vertical one
+ */
+public class FlowDragHelper {
+
+  public interface OnReorderListener {
+
+    /**
+     * called on drop ,from and to are the same if child is back where it started
+     */
+    void onReorder(View child, int from, int to);
+  }
+
+  private final FlowLayout layout;
+  private OnReorderListener onReorderListener;
+  private View draggedChild;
+  private int startIndex;
+  /**
+   * finger relative to top left of dragged child
+   */
+  private float touchOffsetX;
+  private float touchOffsetY;
+  /**
+   * whether reflow animation was disabled before drag ,it's enabled during drag
+   */
+  private boolean restoreAnimation = false;
+
+  public FlowDragHelper(FlowLayout layout) {
+    this.layout = layout;
+  }
+
+  public void setOnReorderListener(OnReorderListener listener) {
+    onReorderListener = listener;
+  }
+
+  /**
+   * start dragging given child ,e.g. on long click
+   *
+   * @param x finger in FlowLayout coordinate
+   * @param y finger in FlowLayout coordinate
+   * @return false if child is not in this layout or another child is being dragged
+   */
+  public boolean startDrag(View child, float x, float y) {
+    if (draggedChild != null || child.getParent() != layout) {
+      return false;
+    }
+    draggedChild = child;
+    startIndex = layout.indexOfChild(child);
+    touchOffsetX = x - child.getLeft() - child.getTranslationX();
+    touchOffsetY = y - child.getTop() - child.getTranslationY();
+    restoreAnimation = layout.getReflowAnimator() == null;
+    if (restoreAnimation) {
+      layout.setReflowAnimationEnabled(true);
+    }
+    layout.setDraggedChild(child);
+    return true;
+  }
+
+  /**
+   * move dragged child with the finger ,and to the slot under it
+   */
+  public void dragTo(float x, float y) {
+    if (draggedChild == null) {
+      return;
+    }
+    draggedChild.setTranslationX(x - touchOffsetX - draggedChild.getLeft());
+    draggedChild.setTranslationY(y - touchOffsetY - draggedChild.getTop());
+    // line table is stale until last move is laid out ,next step will check again
+    if (layout.isLayoutRequested()) {
+      return;
+    }
+    int from = layout.indexOfChild(draggedChild);
+    int to = findDropIndex(from, x, y);
+    if (to != from) {
+      layout.moveView(from, to);
+    }
+  }
+
+  /**
+   * @return index dragged child should move to ,from if there is no line
+   */
+  private int findDropIndex(int from, float x, float y) {
+    if (layout.getLineCount() == 0) {
+      return from;
+    }
+    int line = layout.getLineForY((int) y);
+    int end = Math.min(layout.getLineEnd(line), layout.getChildCount());
+    int slot = end;
+    for (int i = layout.getLineStart(line); i < end; i++) {
+      View child = layout.getChildAt(i);
+      if (child == draggedChild || child.getVisibility() == View.GONE) {
+        continue;
+      }
+      if (x < child.getLeft() + child.getWidth() / 2) {
+        slot = i;
+        break;
+      }
+    }
+    // slot is an index before dragged child is taken out
+    return slot > from ? slot - 1 : slot;
+  }
+
+  /**
+   * drop dragged child at its current slot
+   */
+  public void endDrag() {
+    if (draggedChild == null) {
+      return;
+    }
+    View child = draggedChild;
+    draggedChild = null;
+    layout.setDraggedChild(null);
+    if (layout.isLayoutRequested()) {
+      // child slides from the finger to its slot in next layout
+      if (restoreAnimation) {
+        restoreAnimationAfterLayout();
+      }
+    } else {
+      FlowReflowAnimator animator = layout.getReflowAnimator();
+      if (animator != null) {
+        animator.settle(child);
+      } else {
+        child.setTranslationX(0);
+        child.setTranslationY(0);
+      }
+      if (restoreAnimation) {
+        layout.setReflowAnimationEnabled(false);
+      }
+    }
+    restoreAnimation = false;
+    if (onReorderListener != null) {
+      onReorderListener.onReorder(child, startIndex, layout.indexOfChild(child));
+    }
+  }
+
+  /**
+   * move dragged child back to where it started and drop it
+   */
+  public void cancelDrag() {
+    if (draggedChild == null) {
+      return;
+    }
+    int index = layout.indexOfChild(draggedChild);
+    if (index != startIndex) {
+      layout.moveView(index, startIndex);
+    }
+    endDrag();
+  }
+
+  private void restoreAnimationAfterLayout() {
+    final ViewTreeObserver observer = layout.getViewTreeObserver();
+    observer.addOnGlobalLayoutListener(new ViewTreeObserver.OnGlobalLayoutListener() {
+      @Override
+      public void onGlobalLayout() {
+        observer.removeGlobalOnLayoutListener(this);
+        if (draggedChild == null) {
+          layout.setReflowAnimationEnabled(false);
+        }
+      }
+    });
+  }
+
+  /**
+   * feed touch events of FlowLayout while dragging ,e.g. from its OnTouchListener
+   *
+   * @return whether event was used
+   */
+  public boolean onTouchEvent(MotionEvent event) {
+    if (draggedChild == null) {
+      return false;
+    }
+    switch (event.getActionMasked()) {
+      case MotionEvent.ACTION_MOVE:
+        dragTo(event.getX(), event.getY());
+        break;
+      case MotionEvent.ACTION_UP:
+        dragTo(event.getX(), event.getY());
+        endDrag();
+        break;
+      case MotionEvent.ACTION_CANCEL:
+        cancelDrag();
+        break;
+      default:
+        break;
+    }
+    return true;
+  }
+
+  public boolean isDragging() {
+    return draggedChild != null;
+  }
+
+  public View getDraggedChild() {
+    return draggedChild;
+  }
+}
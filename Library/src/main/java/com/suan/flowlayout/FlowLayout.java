@@ -15,13 +15,17 @@ package com.suan.flowlayout;
 
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import android.content.Context;
 import android.content.res.TypedArray;
+import android.graphics.Canvas;
+import android.graphics.Rect;
 import android.util.AttributeSet;
 import android.view.View;
 import android.view.ViewGroup;
+import android.view.ViewTreeObserver;
 
 /**
  * Created by suanmiao on 14-10-3.
@@ -51,12 +55,33 @@ public class FlowLayout extends ViewGroup {
   public static final int GRAVITY_BOTTOM = 5;
 
   private static final int SPACING_NONE = -1;
+  private static final int REFLOW_NONE = -1;
+  private static final int LAYOUT_ALL = -1;
+  private static final int REFLOW_END = Integer.MAX_VALUE;
+
+  public static final int DEFAULT_PLACEHOLDER_PREFETCH_LINES = 2;
+
+  /**
+   * uniform child size taken from first child
+   */
+  public static final int UNIFORM_SIZE_FIRST_CHILD = -1;
+
+  /**
+   * color lines of debug overlay by measure time ,from green to red
+   */
+  public static final int DEBUG_COLOR_BY_COST = 0;
+  /**
+   * color lines of debug overlay by whether they hold placeholders ,were reused from last pass
+   * or were flowed again
+   */
+  public static final int DEBUG_COLOR_BY_SOURCE = 1;
 
   // horizontal
   private int availableWidth;
   private List<List<Integer>> lineChildIndex;
   private List<Integer> lineHeightList;
   private List<Integer> lineWidthList;
+  private List<Integer> lineTopList;
   private int currentLineWidth = 0;
   private int currentLineHeight = 0;
   private int maxWidth = 0;
@@ -88,6 +113,157 @@ public class FlowLayout extends ViewGroup {
    */
   private boolean efficientMode = false;
 
+  // variable for uniform mode
+  /**
+   * if true ,every child has the same size ,lines and positions are computed arithmetically
+   */
+  private boolean uniformMode = false;
+  private int uniformChildWidth = UNIFORM_SIZE_FIRST_CHILD;
+  private int uniformChildHeight = UNIFORM_SIZE_FIRST_CHILD;
+  /**
+   * first child whose size is used ,measured again only when it changes
+   */
+  private View uniformSizeChild;
+  private int firstChildWidth;
+  private int firstChildHeight;
+  private int cellWidth;
+  private int cellHeight;
+  private int columnCount;
+  private int uniformLineCount = 0;
+  private int uniformChildCount = 0;
+
+  // reflow
+  /**
+   * first child changed since last pass ,REFLOW_NONE if whole flow must run again
+   */
+  private int reflowFrom = REFLOW_NONE;
+  /**
+   * last child changed since last pass ,children after it are the same as in last pass ,so flow
+   * can stop once it reaches one of them in the same state ,REFLOW_END if it can't stop
+   */
+  private int reflowTo = REFLOW_END;
+  /**
+   * set while requesting layout for a change which was already recorded in reflowFrom/reflowTo
+   */
+  private boolean keepReflow = false;
+  /**
+   * lines are kept but every line must be positioned again ,e.g. gravity changed
+   */
+  private boolean positionAllLines = false;
+  private int measuredChildCount = -1;
+  private int lastWidthMeasureSpec;
+  private int lastHeightMeasureSpec;
+  /**
+   * flow state right before child i was flowed in last pass ,index childCount is the state before
+   * last line ended
+   */
+  private int[] snapLineWidth = new int[0];
+  private int[] snapLineHeight = new int[0];
+  private int[] snapLineNum = new int[0];
+  private int[] snapMaxWidth = new int[0];
+  private int[] snapLineCount = new int[0];
+  private int[] snapLineStart = new int[0];
+  /**
+   * lines of last pass while new lines from lineBase on are flowed ,null if everything is flowed
+   */
+  private List<List<Integer>> keptLineChildIndex;
+  private List<Integer> keptLineHeightList;
+  private List<Integer> keptLineWidthList;
+  private int lineBase = 0;
+  /**
+   * flow state right before child reflowFrom ,taken when reflowFrom is set since tables of last
+   * pass are moved when children are replaced
+   */
+  private int restartLineWidth;
+  private int restartLineHeight;
+  private int restartLineNum;
+  private int restartMaxWidth;
+  private int restartLineCount;
+  private int restartLineStart;
+
+  // group
+  /**
+   * first child ,first line and widest line of each lineNum group in last pass ,a group is a run
+   * of children with the same lineNum ,it always starts a new line ,so its lines only depend on
+   * its own children and a group after a changed one is kept and only moved
+   */
+  private List<Integer> groupStartList;
+  private List<Integer> groupLineList;
+  private List<Integer> groupWidthList;
+  private List<Integer> keptGroupStartList;
+  private List<Integer> keptGroupLineList;
+  private List<Integer> keptGroupWidthList;
+  private int groupBase = 0;
+
+  // placeholder
+  /**
+   * placeholder children ,counted as they are added and removed in any way
+   */
+  private int placeholderCount = 0;
+  /**
+   * scroll listener is only registered while attached and some placeholder is left
+   */
+  private boolean attached = false;
+  private boolean scrollListenerAdded = false;
+  private int placeholderPrefetchLines = DEFAULT_PLACEHOLDER_PREFETCH_LINES;
+  private final Rect visibleRect = new Rect();
+  /**
+   * set while children are laid out ,a layout request made then is lost when the pass ends ,so it
+   * is posted instead
+   */
+  private boolean inLayout = false;
+  private final Runnable reflowRequest = new Runnable() {
+    @Override
+    public void run() {
+      requestLayoutKeepingReflow();
+    }
+  };
+
+  // debug
+  /**
+   * null when debug overlay is disabled
+   */
+  private FlowDebugOverlay debugOverlay;
+  private int debugColorMode = DEBUG_COLOR_BY_COST;
+  /**
+   * lines before this one were reused from last measure
+   */
+  private int firstReflowedLine = 0;
+  /**
+   * lines from this one on were reused from last measure ,only moved down or up
+   */
+  private int reflowedLineEnd = 0;
+  /**
+   * lines from layoutLineFrom until layoutLineEnd were positioned by measures since last layout ,
+   * only their children are laid out again ,LAYOUT_ALL lays out every child
+   */
+  private int layoutLineFrom = LAYOUT_ALL;
+  private int layoutLineEnd = 0;
+  private boolean layoutPending = false;
+  /**
+   * child being dragged ,drawn above the others and kept where it's drawn on layout
+   */
+  private View draggedChild;
+  /**
+   * increased on every layout ,so helpers know child positions changed
+   */
+  private int layoutGeneration = 0;
+
+  /**
+   * null when reflow animation is disabled
+   */
+  private FlowReflowAnimator reflowAnimator;
+  private final ViewTreeObserver.OnScrollChangedListener scrollChangedListener =
+      new ViewTreeObserver.OnScrollChangedListener() {
+        @Override
+        public void onScrollChanged() {
+          // line table is stale until next layout ,which will check again
+          if (!isLayoutRequested()) {
+            inflatePlaceholdersNearViewport();
+          }
+        }
+      };
+
   public FlowLayout(Context context) {
     this(context, null);
   }
@@ -111,6 +287,15 @@ public class FlowLayout extends ViewGroup {
           a.getDimensionPixelSize(R.styleable.FlowLayout_verticalSpacing, SPACING_NONE);
       horizontalSpacing =
           a.getDimensionPixelSize(R.styleable.FlowLayout_horizontalSpacing, SPACING_NONE);
+      uniformMode = a.getBoolean(R.styleable.FlowLayout_flow_uniform_mode, false);
+      uniformChildWidth = a.getDimensionPixelSize(R.styleable.FlowLayout_uniformChildWidth,
+          UNIFORM_SIZE_FIRST_CHILD);
+      uniformChildHeight = a.getDimensionPixelSize(R.styleable.FlowLayout_uniformChildHeight,
+          UNIFORM_SIZE_FIRST_CHILD);
+      debugColorMode = a.getInt(R.styleable.FlowLayout_flow_debug_color_mode, DEBUG_COLOR_BY_COST);
+      setDebugOverlayEnabled(a.getBoolean(R.styleable.FlowLayout_flow_debug_overlay, false));
+      setReflowAnimationEnabled(
+          a.getBoolean(R.styleable.FlowLayout_flow_reflow_animation, false));
     } finally {
       a.recycle();
     }
@@ -121,12 +306,23 @@ public class FlowLayout extends ViewGroup {
     super.onMeasure(widthMeasureSpec, heightMeasureSpec);
     switch (orientation) {
       case ORIENTATION_HORIZONTAL:
-        measureHorizontally(widthMeasureSpec, heightMeasureSpec);
+        if (uniformMode) {
+          measureUniformly(widthMeasureSpec, heightMeasureSpec);
+          measuredChildCount = -1;
+          setLayoutLines(LAYOUT_ALL, 0);
+        } else {
+          measureHorizontally(widthMeasureSpec, heightMeasureSpec);
+        }
         break;
       case ORIENTATION_VERTICAL:
         measureVertically(widthMeasureSpec, heightMeasureSpec);
+        measuredChildCount = -1;
+        setLayoutLines(LAYOUT_ALL, 0);
         break;
     }
+    reflowFrom = REFLOW_NONE;
+    reflowTo = REFLOW_END;
+    positionAllLines = false;
   }
 
   private void measureHorizontally(int widthMeasureSpec, int heightMeasureSpec) {
@@ -135,149 +331,250 @@ public class FlowLayout extends ViewGroup {
     int widthMode = MeasureSpec.getMode(widthMeasureSpec);
     int heightMode = MeasureSpec.getMode(heightMeasureSpec);
     availableWidth = widthSize - getPaddingLeft() - getPaddingRight();
-    /**
-     * two kind of type should be taken into account:
-     * 1. dimen = 0 && weight !=0
-     * 2. MATCH_PARENT
-     */
-    lineChildIndex = new ArrayList<List<Integer>>();
-    lineHeightList = new ArrayList<Integer>();
-    lineWidthList = new ArrayList<Integer>();
-    weightChildList = new ArrayList<Integer>();
+    int childCount = getChildCount();
+    int firstChild;
+    int lastChangedChild;
+    if (canReflow(widthMeasureSpec, heightMeasureSpec)) {
+      // only children from the first changed one are flowed ,from the state saved before it
+      firstChild = reflowFrom;
+      lastChangedChild = reflowTo;
+      restartFlowAt(reflowFrom);
+    } else {
+      /**
+       * two kind of type should be taken into account:
+       * 1. dimen = 0 && weight !=0
+       * 2. MATCH_PARENT
+       */
+      lineChildIndex = new ArrayList<List<Integer>>();
+      lineHeightList = new ArrayList<Integer>();
+      lineWidthList = new ArrayList<Integer>();
+      lineTopList = new ArrayList<Integer>();
+      weightChildList = new ArrayList<Integer>();
+      maxWidth = 0;
+      lineNum = LayoutParam.LINE_NUM_INVALID;
+      firstReflowedLine = 0;
+      lineBase = 0;
+      keptLineChildIndex = null;
+      groupStartList = new ArrayList<Integer>();
+      groupLineList = new ArrayList<Integer>();
+      groupWidthList = new ArrayList<Integer>();
+      groupBase = 0;
+      keptGroupStartList = null;
+      newLine();
+      groupStartList.add(0);
+      groupLineList.add(0);
+      firstChild = 0;
+      lastChangedChild = REFLOW_END;
+    }
+    if (debugOverlay != null) {
+      debugOverlay.beginPass(firstReflowedLine);
+    }
+    ensureSnapshotCapacity(childCount + 1);
+    int changedLineEnd = -1;
+    for (int i = firstChild; i < childCount; i++) {
+      if (i > lastChangedChild && i > 0 && i < measuredChildCount) {
+        if (isSameStateAsLastPass(i)) {
+          // rest of the flow is the same as last pass
+          changedLineEnd = keepLinesFrom(i);
+          break;
+        }
+        if (startsKeptGroup(i)) {
+          // rest of the groups are the same as last pass ,only moved
+          saveSnapshot(i);
+          changedLineEnd = keepGroupsFrom(i);
+          break;
+        }
+      }
+      saveSnapshot(i);
+      flowChildHorizontally(i, widthSize, heightMode);
+    }
+
+    if (changedLineEnd < 0) {
+      // keep state of last line ,so children appended later can continue it
+      saveSnapshot(childCount);
+      // end last line
+      endLine(availableWidth - currentLineWidth);
+      groupWidthList.add(maxWidth);
+      replaceKeptLines(keptLineChildIndex == null ? 0 : keptLineChildIndex.size());
+      int keptGroupEnd = keptGroupStartList == null ? 0 : keptGroupStartList.size();
+      replaceKeptGroups(keptGroupEnd, keptGroupEnd);
+      changedLineEnd = lineChildIndex.size();
+    }
     maxWidth = 0;
-    lineNum = LayoutParam.LINE_NUM_INVALID;
-    newLine();
-    for (int i = 0; i < getChildCount(); i++) {
-      View child = getChildAt(i);
-      LayoutParam lp = (LayoutParam) child.getLayoutParams();
+    for (int width : groupWidthList) {
+      maxWidth = Math.max(maxWidth, width);
+    }
 
-      int childWidthMode = MeasureSpec.EXACTLY;
-      int childHeightMode = MeasureSpec.EXACTLY;
+    reflowedLineEnd = changedLineEnd;
+    if (debugOverlay != null) {
+      debugOverlay.endPass();
+    }
 
-      int childWidthSize = lp.width;
-      int childHeightSize = lp.height;
+    // then set position for all child
+    int totalHeight = positionAllLines
+        ? positionLines(0, lineChildIndex.size())
+        : positionLines(firstReflowedLine, changedLineEnd);
+    lastWidthMeasureSpec = widthMeasureSpec;
+    lastHeightMeasureSpec = heightMeasureSpec;
+    measuredChildCount = childCount;
 
-      int childHorizontalSpacing = getChildHorizontalSpacing(child);
-      int childVerticalSpacing = getChildVerticalSpacing(child);
+    int measuredWidth = (widthMode == MeasureSpec.UNSPECIFIED || widthMode == MeasureSpec.AT_MOST)
+        ? maxWidth + getPaddingRight() + getPaddingLeft() : widthSize;
+    int measuredHeight =
+        (heightMode == MeasureSpec.UNSPECIFIED || heightMode == MeasureSpec.AT_MOST)
+            ? totalHeight + getPaddingBottom() : heightSize;
 
-      if (heightMode == MeasureSpec.UNSPECIFIED && childHeightSize == 0) {
-        childHeightMode = MeasureSpec.UNSPECIFIED;
-      }
-      if (lp.lineNum != lineNum) {
-        endLine(availableWidth - currentLineWidth);
-        newLine();
-        lineNum = lp.lineNum;
-      }
+    setMeasuredDimension(measuredWidth, measuredHeight);
+  }
 
-      if (lp.width == LayoutParams.MATCH_PARENT) {
-        if (currentLineWidth + lp.leftMargin + lp.rightMargin + childHorizontalSpacing <= availableWidth) {
-          // take place all the extra spacing
-          childWidthSize =
-              availableWidth - currentLineWidth - lp.leftMargin - lp.rightMargin
-                  - childHorizontalSpacing;
-          currentLineChildIndex.add(i);
-          currentLineWidth = widthSize - getPaddingRight();
-          // child with WRAP_CONTENT has been measured
-          if (lp.width != LayoutParams.WRAP_CONTENT) {
-            child.measure(MeasureSpec.makeMeasureSpec(childWidthSize, childWidthMode),
-                MeasureSpec.makeMeasureSpec(childHeightSize, childHeightMode));
-            childWidthSize = child.getMeasuredWidth();
-            childHeightSize = child.getMeasuredHeight();
-          }
-          // set line height after measure ,in case that height is WRAP_CONTENT
-          currentLineHeight =
-              Math.max(currentLineHeight, childHeightSize + lp.topMargin + lp.bottomMargin
-                  + childVerticalSpacing);
+  private void flowChildHorizontally(int i, int widthSize, int heightMode) {
+    View child = getChildAt(i);
+    LayoutParam lp = (LayoutParam) child.getLayoutParams();
 
-          // end last line
-          endLine(0);
-          newLine();
-        } else {
-          // end last line
-          endLine(0);
-          newLine();
-          childWidthSize = availableWidth - lp.leftMargin - lp.rightMargin - childHorizontalSpacing;
-          currentLineChildIndex.add(i);
-          currentLineWidth = widthSize - getPaddingRight();
-          // child with WRAP_CONTENT has been measured
-          if (lp.width != LayoutParams.WRAP_CONTENT) {
-            child.measure(MeasureSpec.makeMeasureSpec(childWidthSize, childWidthMode),
-                MeasureSpec.makeMeasureSpec(childHeightSize, childHeightMode));
-            childWidthSize = child.getMeasuredWidth();
-            childHeightSize = child.getMeasuredHeight();
-          }
-          // set line height after measure ,in case that height is WRAP_CONTENT
-          currentLineHeight =
-              Math.max(currentLineHeight, childHeightSize + lp.topMargin + lp.bottomMargin
-                  + childVerticalSpacing);
-          endLine(0);
-          newLine();
-        }
-      } else if (lp.width == 0 && lp.weight != 0) {
-        // add to weight child list ,waiting for measure when whole line end ,so it will has extra
-        // place to be placed
-        totalWeight += lp.weight;
-        weightChildList.add(i);
+    int childWidthMode = MeasureSpec.EXACTLY;
+    int childHeightMode = MeasureSpec.EXACTLY;
+
+    int childWidthSize = lp.width;
+    int childHeightSize = lp.height;
+
+    int childHorizontalSpacing = getChildHorizontalSpacing(child);
+    int childVerticalSpacing = getChildVerticalSpacing(child);
+
+    if (heightMode == MeasureSpec.UNSPECIFIED && childHeightSize == 0) {
+      childHeightMode = MeasureSpec.UNSPECIFIED;
+    }
+    if (lp.lineNum != lineNum) {
+      endLine(availableWidth - currentLineWidth);
+      startGroup(i);
+      newLine();
+      lineNum = lp.lineNum;
+    }
+    if (lp.hidden) {
+      // hidden group still starts a new line ,but takes no place
+      return;
+    }
+
+    if (lp.width == LayoutParams.MATCH_PARENT) {
+      if (currentLineWidth + lp.leftMargin + lp.rightMargin + childHorizontalSpacing <= availableWidth) {
+        // take place all the extra spacing
+        childWidthSize =
+            availableWidth - currentLineWidth - lp.leftMargin - lp.rightMargin
+                - childHorizontalSpacing;
         currentLineChildIndex.add(i);
+        currentLineWidth = widthSize - getPaddingRight();
+        // child with WRAP_CONTENT has been measured
+        if (lp.width != LayoutParams.WRAP_CONTENT) {
+          child.measure(MeasureSpec.makeMeasureSpec(childWidthSize, childWidthMode),
+              MeasureSpec.makeMeasureSpec(childHeightSize, childHeightMode));
+          childWidthSize = child.getMeasuredWidth();
+          childHeightSize = child.getMeasuredHeight();
+        }
+        // set line height after measure ,in case that height is WRAP_CONTENT
+        currentLineHeight =
+            Math.max(currentLineHeight, childHeightSize + lp.topMargin + lp.bottomMargin
+                + childVerticalSpacing);
+
+        // end last line
+        endLine(0);
+        newLine();
       } else {
-        if (childWidthSize == LayoutParams.WRAP_CONTENT) {
+        // end last line
+        endLine(0);
+        newLine();
+        childWidthSize = availableWidth - lp.leftMargin - lp.rightMargin - childHorizontalSpacing;
+        currentLineChildIndex.add(i);
+        currentLineWidth = widthSize - getPaddingRight();
+        // child with WRAP_CONTENT has been measured
+        if (lp.width != LayoutParams.WRAP_CONTENT) {
           child.measure(MeasureSpec.makeMeasureSpec(childWidthSize, childWidthMode),
               MeasureSpec.makeMeasureSpec(childHeightSize, childHeightMode));
           childWidthSize = child.getMeasuredWidth();
           childHeightSize = child.getMeasuredHeight();
         }
+        // set line height after measure ,in case that height is WRAP_CONTENT
+        currentLineHeight =
+            Math.max(currentLineHeight, childHeightSize + lp.topMargin + lp.bottomMargin
+                + childVerticalSpacing);
+        endLine(0);
+        newLine();
+      }
+    } else if (lp.width == 0 && lp.weight != 0) {
+      // add to weight child list ,waiting for measure when whole line end ,so it will has extra
+      // place to be placed
+      totalWeight += lp.weight;
+      weightChildList.add(i);
+      currentLineChildIndex.add(i);
+    } else {
+      if (childWidthSize == LayoutParams.WRAP_CONTENT) {
+        child.measure(MeasureSpec.makeMeasureSpec(childWidthSize, childWidthMode),
+            MeasureSpec.makeMeasureSpec(childHeightSize, childHeightMode));
+        childWidthSize = child.getMeasuredWidth();
+        childHeightSize = child.getMeasuredHeight();
+      }
 
-        if (currentLineWidth + lp.leftMargin + childWidthSize + lp.rightMargin
-            + childHorizontalSpacing <= availableWidth) {
-          // current line
-          currentLineChildIndex.add(i);
-          currentLineWidth +=
-              childWidthSize + lp.leftMargin + lp.rightMargin + childHorizontalSpacing;
-          // child with WRAP_CONTENT has been measured
-          if (lp.width != LayoutParams.WRAP_CONTENT) {
-            child.measure(MeasureSpec.makeMeasureSpec(childWidthSize, childWidthMode),
-                MeasureSpec.makeMeasureSpec(childHeightSize, childHeightMode));
-            childWidthSize = child.getMeasuredWidth();
-            childHeightSize = child.getMeasuredHeight();
-          }
-          // set line height after measure ,in case that height is WRAP_CONTENT
-          if (childWidthSize + lp.leftMargin + lp.rightMargin != 0) {
-            currentLineHeight =
-                Math.max(currentLineHeight, childHeightSize + lp.topMargin + lp.bottomMargin
-                    + childVerticalSpacing);
-          }
-        } else {
-          // end last line
-          endLine(availableWidth - currentLineWidth);
-          newLine();
-
-          currentLineChildIndex.add(i);
-          currentLineWidth =
-              childWidthSize + lp.leftMargin + lp.rightMargin + childHorizontalSpacing;
-          // child with WRAP_CONTENT has been measured
-          if (lp.width != LayoutParams.WRAP_CONTENT) {
-            child.measure(MeasureSpec.makeMeasureSpec(childWidthSize, childWidthMode),
-                MeasureSpec.makeMeasureSpec(childHeightSize, childHeightMode));
-            childWidthSize = child.getMeasuredWidth();
-            childHeightSize = child.getMeasuredHeight();
-          }
-          // set line height after measure ,in case that height is WRAP_CONTENT
+      if (currentLineWidth + lp.leftMargin + childWidthSize + lp.rightMargin
+          + childHorizontalSpacing <= availableWidth) {
+        // current line
+        currentLineChildIndex.add(i);
+        currentLineWidth +=
+            childWidthSize + lp.leftMargin + lp.rightMargin + childHorizontalSpacing;
+        // child with WRAP_CONTENT has been measured
+        if (lp.width != LayoutParams.WRAP_CONTENT) {
+          child.measure(MeasureSpec.makeMeasureSpec(childWidthSize, childWidthMode),
+              MeasureSpec.makeMeasureSpec(childHeightSize, childHeightMode));
+          childWidthSize = child.getMeasuredWidth();
+          childHeightSize = child.getMeasuredHeight();
+        }
+        // set line height after measure ,in case that height is WRAP_CONTENT
+        if (childWidthSize + lp.leftMargin + lp.rightMargin != 0) {
           currentLineHeight =
               Math.max(currentLineHeight, childHeightSize + lp.topMargin + lp.bottomMargin
                   + childVerticalSpacing);
         }
-      }
+      } else {
+        // end last line
+        endLine(availableWidth - currentLineWidth);
+        newLine();
 
+        currentLineChildIndex.add(i);
+        currentLineWidth =
+            childWidthSize + lp.leftMargin + lp.rightMargin + childHorizontalSpacing;
+        // child with WRAP_CONTENT has been measured
+        if (lp.width != LayoutParams.WRAP_CONTENT) {
+          child.measure(MeasureSpec.makeMeasureSpec(childWidthSize, childWidthMode),
+              MeasureSpec.makeMeasureSpec(childHeightSize, childHeightMode));
+          childWidthSize = child.getMeasuredWidth();
+          childHeightSize = child.getMeasuredHeight();
+        }
+        // set line height after measure ,in case that height is WRAP_CONTENT
+        currentLineHeight =
+            Math.max(currentLineHeight, childHeightSize + lp.topMargin + lp.bottomMargin
+                + childVerticalSpacing);
+      }
     }
+  }
 
-    // end last line
-    endLine(availableWidth - currentLineWidth);
-
-    // then set position for all child
-    int totalHeight = getPaddingTop();
-    for (int i = 0; i < lineChildIndex.size(); i++) {
+  /**
+   * set position of children from given line on ,lines before it are kept ,lines from
+   * changedLineEnd on are the same as last pass and are skipped once they don't move
+   *
+   * @return bottom of last line
+   */
+  private int positionLines(int fromLine, int changedLineEnd) {
+    int lineCount = lineChildIndex.size();
+    int totalHeight = fromLine == 0 ? getPaddingTop() : getLineBottom(fromLine - 1);
+    for (int i = fromLine; i < lineCount; i++) {
+      if (i >= changedLineEnd && lineTopList.get(i) == totalHeight) {
+        setLayoutLines(fromLine, i);
+        return getLineBottom(lineCount - 1);
+      }
       List<Integer> currentLineIndexList = lineChildIndex.get(i);
       currentLineHeight = lineHeightList.get(i);
+      if (i < lineTopList.size()) {
+        lineTopList.set(i, totalHeight);
+      } else {
+        lineTopList.add(totalHeight);
+      }
       int currentLineTotalWidth = lineWidthList.get(i);
       switch (gravity) {
         case GRAVITY_CENTER:
@@ -302,66 +599,419 @@ public class FlowLayout extends ViewGroup {
       }
       totalHeight += currentLineHeight;
     }
+    while (lineTopList.size() > lineCount) {
+      lineTopList.remove(lineTopList.size() - 1);
+    }
+    setLayoutLines(fromLine, lineCount);
+    return totalHeight;
+  }
 
-    int measuredWidth = (widthMode == MeasureSpec.UNSPECIFIED || widthMode == MeasureSpec.AT_MOST)
-        ? maxWidth + getPaddingRight() + getPaddingLeft() : widthSize;
-    int measuredHeight =
-        (heightMode == MeasureSpec.UNSPECIFIED || heightMode == MeasureSpec.AT_MOST)
-            ? totalHeight + getPaddingBottom() : heightSize;
-
-    setMeasuredDimension(measuredWidth, measuredHeight);
+  /**
+   * record lines whose children are laid out in next layout
+   */
+  private void setLayoutLines(int from, int end) {
+    // line indices of an earlier measure which was not laid out yet may have moved since
+    layoutLineFrom = layoutPending ? LAYOUT_ALL : from;
+    layoutLineEnd = end;
+    layoutPending = true;
   }
 
-  private void endLine(int extraSpacing) {
-    // when every line ends , child in weight list will be calculated
-    measureWeightChildHorizontal(weightChildList, extraSpacing,
-        totalWeight);
-    int currentLineTotalWidth = 0;
-    for (int childIndex : currentLineChildIndex) {
-      View child = getChildAt(childIndex);
-      currentLineTotalWidth += child.getMeasuredWidth();
-    }
-    lineWidthList.add(currentLineTotalWidth);
-    lineChildIndex.add(currentLineChildIndex);
-    lineHeightList.add(currentLineHeight);
-    maxWidth = Math.max(currentLineWidth, maxWidth);
+  /**
+   * @return whether children from reflowFrom on can be flowed again from state of last pass
+   */
+  private boolean canReflow(int widthMeasureSpec, int heightMeasureSpec) {
+    return reflowFrom != REFLOW_NONE
+        && reflowFrom <= measuredChildCount
+        && lineChildIndex != null
+        && widthMeasureSpec == lastWidthMeasureSpec
+        && heightMeasureSpec == lastHeightMeasureSpec;
   }
 
-  private void newLine() {
-    // create new
+  /**
+   * take state of last pass right before given child was flowed ,lines flowed from here on are
+   * collected apart and put in place of the old ones by replaceKeptLines
+   */
+  private void restartFlowAt(int child) {
+    int line = restartLineCount;
+    // current line holds children of that line before the given one
     currentLineChildIndex = new ArrayList<Integer>();
-    currentLineHeight = 0;
-    currentLineWidth = getPaddingLeft();
+    for (int i = restartLineStart; i < child; i++) {
+      currentLineChildIndex.add(i);
+    }
+    currentLineWidth = restartLineWidth;
+    currentLineHeight = restartLineHeight;
+    lineNum = restartLineNum;
+    maxWidth = restartMaxWidth;
+    // weight children of current line will be measured again with the new extra spacing
+    weightChildList.clear();
     totalWeight = 0;
+    for (int childIndex : currentLineChildIndex) {
+      LayoutParam lp = (LayoutParam) getChildAt(childIndex).getLayoutParams();
+      if (lp.width == 0 && lp.weight != 0) {
+        totalWeight += lp.weight;
+        weightChildList.add(childIndex);
+      }
+    }
+    keptLineChildIndex = lineChildIndex;
+    keptLineHeightList = lineHeightList;
+    keptLineWidthList = lineWidthList;
+    lineChildIndex = new ArrayList<List<Integer>>();
+    lineHeightList = new ArrayList<Integer>();
+    lineWidthList = new ArrayList<Integer>();
+    lineBase = line;
+    firstReflowedLine = line;
+    // group of current line is open again
+    int group = findGroup(groupStartList, Math.max(child - 1, 0));
+    keptGroupStartList = groupStartList;
+    keptGroupLineList = groupLineList;
+    keptGroupWidthList = groupWidthList;
+    groupStartList = new ArrayList<Integer>();
+    groupLineList = new ArrayList<Integer>();
+    groupWidthList = new ArrayList<Integer>();
+    groupStartList.add(keptGroupStartList.get(group));
+    groupLineList.add(keptGroupLineList.get(group));
+    groupBase = group;
+    if (debugOverlay != null) {
+      debugOverlay.startLine();
+    }
   }
 
-  private void measureWeightChildHorizontal(List<Integer> weightChildList, int extraSpacing,
-      float totalWeight) {
-    while (weightChildList.size() > 0) {
-      int childIndex = weightChildList.get(0);
-      View weightChild = getChildAt(childIndex);
-      LayoutParam lp = (LayoutParam) weightChild.getLayoutParams();
+  /**
+   * flow reached given child in the same state as last pass ,lines from the current one on are
+   * kept
+   *
+   * @return end of lines flowed in this pass
+   */
+  private int keepLinesFrom(int child) {
+    int lineEnd = snapLineCount[child];
+    replaceKeptLines(lineEnd);
+    // group of child before is open ,its width is the one of last pass
+    int group = findGroup(keptGroupStartList, child - 1);
+    replaceKeptGroups(group + 1, group);
+    return lineEnd;
+  }
 
-      int childWidthMode = MeasureSpec.EXACTLY;
-      int childHeightMode = MeasureSpec.EXACTLY;
-      int childWidthSize = (int) (lp.weight / totalWeight * extraSpacing);
-      int childHeightSize = lp.height;
+  /**
+   * @return whether given child starts a new group in this pass ,and started one in last pass
+   */
+  private boolean startsKeptGroup(int child) {
+    LayoutParam lp = (LayoutParam) getChildAt(child).getLayoutParams();
+    if (lp.lineNum == lineNum) {
+      return false;
+    }
+    int group = findGroup(keptGroupStartList, child);
+    return keptGroupStartList.get(group) == child;
+  }
 
-      if (childWidthSize + lp.leftMargin + lp.rightMargin != 0) {
-        currentLineHeight =
-            Math.max(currentLineHeight, childHeightSize + lp.topMargin + lp.bottomMargin);
+  /**
+   * flow reached a group which starts with a new line in both passes ,so lines of groups from it
+   * on are kept and only moved by the count of lines this pass added or removed
+   *
+   * @return end of lines flowed in this pass
+   */
+  private int keepGroupsFrom(int child) {
+    endLine(availableWidth - currentLineWidth);
+    groupWidthList.add(maxWidth);
+    int group = findGroup(keptGroupStartList, child);
+    int lineEnd = lineBase + lineChildIndex.size();
+    int delta = lineEnd - keptGroupLineList.get(group);
+    int keptGroupBase = groupBase + groupStartList.size();
+    if (debugOverlay != null) {
+      debugOverlay.moveLines(keptGroupLineList.get(group), delta);
+    }
+    replaceKeptLines(keptGroupLineList.get(group));
+    replaceKeptGroups(group, group);
+    if (delta != 0) {
+      for (int i = keptGroupBase; i < groupLineList.size(); i++) {
+        groupLineList.set(i, groupLineList.get(i) + delta);
+      }
+      for (int i = child + 1; i <= measuredChildCount; i++) {
+        snapLineCount[i] += delta;
       }
-      weightChild.measure(MeasureSpec.makeMeasureSpec(childWidthSize, childWidthMode),
-          MeasureSpec.makeMeasureSpec(childHeightSize, childHeightMode));
-      weightChildList.remove(0);
     }
+    return lineEnd;
   }
 
-  private void measureVertically(int widthMeasureSpec, int heightMeasureSpec) {
-    int widthSize = MeasureSpec.getSize(widthMeasureSpec);
-    int heightSize = MeasureSpec.getSize(heightMeasureSpec);
-    int widthMode = MeasureSpec.getMode(widthMeasureSpec);
-    int heightMode = MeasureSpec.getMode(heightMeasureSpec);
+  /**
+   * put groups flowed in this pass in place of groups from groupBase of last pass ,the last group
+   * flowed may still be open and has no width yet
+   */
+  private void replaceKeptGroups(int keptGroupEnd, int keptWidthEnd) {
+    if (keptGroupStartList == null) {
+      return;
+    }
+    replaceRange(keptGroupStartList, groupBase, keptGroupEnd, groupStartList);
+    replaceRange(keptGroupLineList, groupBase, keptGroupEnd, groupLineList);
+    replaceRange(keptGroupWidthList, groupBase, keptWidthEnd, groupWidthList);
+    groupStartList = keptGroupStartList;
+    groupLineList = keptGroupLineList;
+    groupWidthList = keptGroupWidthList;
+    keptGroupStartList = null;
+    keptGroupLineList = null;
+    keptGroupWidthList = null;
+    groupBase = 0;
+  }
+
+  /**
+   * @return index of group holding given child in given start list
+   */
+  private static int findGroup(List<Integer> startList, int child) {
+    int low = 0;
+    int high = startList.size() - 1;
+    while (low < high) {
+      int mid = (low + high + 1) >>> 1;
+      if (startList.get(mid) <= child) {
+        low = mid;
+      } else {
+        high = mid - 1;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * called between end of a line and start of the next one when lineNum changes
+   */
+  private void startGroup(int child) {
+    // children before the first one with a lineNum are in its group ,with an empty line
+    if (child == groupStartList.get(groupStartList.size() - 1)) {
+      return;
+    }
+    groupWidthList.add(maxWidth);
+    maxWidth = 0;
+    groupStartList.add(child);
+    groupLineList.add(lineBase + lineChildIndex.size());
+  }
+
+  /**
+   * put lines flowed in this pass in place of lines from lineBase until keptLineEnd of last pass
+   */
+  private void replaceKeptLines(int keptLineEnd) {
+    if (keptLineChildIndex == null) {
+      return;
+    }
+    replaceRange(keptLineChildIndex, lineBase, keptLineEnd, lineChildIndex);
+    replaceRange(keptLineHeightList, lineBase, keptLineEnd, lineHeightList);
+    replaceRange(keptLineWidthList, lineBase, keptLineEnd, lineWidthList);
+    // tops of new lines are set by positionLines ,later lines keep theirs to be compared there
+    replaceRange(lineTopList, lineBase, Math.min(keptLineEnd, lineTopList.size()),
+        Collections.nCopies(lineChildIndex.size(), 0));
+    lineChildIndex = keptLineChildIndex;
+    lineHeightList = keptLineHeightList;
+    lineWidthList = keptLineWidthList;
+    keptLineChildIndex = null;
+    keptLineHeightList = null;
+    keptLineWidthList = null;
+    lineBase = 0;
+  }
+
+  private static <T> void replaceRange(List<T> target, int start, int end, List<T> items) {
+    int common = Math.min(end - start, items.size());
+    for (int i = 0; i < common; i++) {
+      target.set(start + i, items.get(i));
+    }
+    if (end - start > common) {
+      target.subList(start + common, end).clear();
+    } else if (items.size() > common) {
+      target.addAll(start + common, items.subList(common, items.size()));
+    }
+  }
+
+  private void ensureSnapshotCapacity(int capacity) {
+    if (snapLineWidth.length >= capacity) {
+      return;
+    }
+    int newCapacity = Math.max(capacity, snapLineWidth.length * 2);
+    snapLineWidth = copyOf(snapLineWidth, newCapacity);
+    snapLineHeight = copyOf(snapLineHeight, newCapacity);
+    snapLineNum = copyOf(snapLineNum, newCapacity);
+    snapMaxWidth = copyOf(snapMaxWidth, newCapacity);
+    snapLineCount = copyOf(snapLineCount, newCapacity);
+    snapLineStart = copyOf(snapLineStart, newCapacity);
+  }
+
+  private static int[] copyOf(int[] source, int length) {
+    int[] copy = new int[length];
+    System.arraycopy(source, 0, copy, 0, source.length);
+    return copy;
+  }
+
+  private void saveSnapshot(int child) {
+    snapLineWidth[child] = currentLineWidth;
+    snapLineHeight[child] = currentLineHeight;
+    snapLineNum[child] = lineNum;
+    snapMaxWidth[child] = maxWidth;
+    snapLineCount[child] = lineBase + lineChildIndex.size();
+    snapLineStart[child] = getCurrentLineStart(child);
+  }
+
+  /**
+   * @return whether flow reaches given child in the same state as last pass ,and its current line
+   * only holds children which didn't change
+   */
+  private boolean isSameStateAsLastPass(int child) {
+    int currentLineStart = getCurrentLineStart(child);
+    return currentLineStart > reflowTo
+        && currentLineStart == snapLineStart[child]
+        && currentLineWidth == snapLineWidth[child]
+        && currentLineHeight == snapLineHeight[child]
+        && lineNum == snapLineNum[child]
+        && maxWidth == snapMaxWidth[child]
+        && lineBase + lineChildIndex.size() == snapLineCount[child];
+  }
+
+  private int getCurrentLineStart(int child) {
+    return currentLineChildIndex.isEmpty() ? child : currentLineChildIndex.get(0);
+  }
+
+
+  /**
+   * every child is measured with the same spec ,so View's measure cache skips all but changed
+   * children ,line of child i is i / columnCount and nothing else needs to be stored
+   */
+  private void measureUniformly(int widthMeasureSpec, int heightMeasureSpec) {
+    int widthSize = MeasureSpec.getSize(widthMeasureSpec);
+    int heightSize = MeasureSpec.getSize(heightMeasureSpec);
+    int widthMode = MeasureSpec.getMode(widthMeasureSpec);
+    int heightMode = MeasureSpec.getMode(heightMeasureSpec);
+    availableWidth = widthSize - getPaddingLeft() - getPaddingRight();
+    int childCount = getChildCount();
+    firstReflowedLine = 0;
+
+    int childWidth = uniformChildWidth;
+    int childHeight = uniformChildHeight;
+    if ((childWidth == UNIFORM_SIZE_FIRST_CHILD || childHeight == UNIFORM_SIZE_FIRST_CHILD)
+        && childCount > 0) {
+      measureFirstChild();
+      childWidth = childWidth == UNIFORM_SIZE_FIRST_CHILD ? firstChildWidth : childWidth;
+      childHeight = childHeight == UNIFORM_SIZE_FIRST_CHILD ? firstChildHeight : childHeight;
+    }
+    childWidth = Math.max(0, childWidth);
+    childHeight = Math.max(0, childHeight);
+    int childWidthMeasureSpec = MeasureSpec.makeMeasureSpec(childWidth, MeasureSpec.EXACTLY);
+    int childHeightMeasureSpec = MeasureSpec.makeMeasureSpec(childHeight, MeasureSpec.EXACTLY);
+
+    int spacingHorizontal = horizontalSpacing == SPACING_NONE ? 0 : horizontalSpacing;
+    int spacingVertical = verticalSpacing == SPACING_NONE ? 0 : verticalSpacing;
+    cellWidth = childWidth + spacingHorizontal;
+    cellHeight = childHeight + spacingVertical;
+    columnCount =
+        cellWidth == 0 ? Math.max(1, childCount) : Math.max(1, availableWidth / cellWidth);
+    uniformChildCount = childCount;
+    uniformLineCount = (childCount + columnCount - 1) / columnCount;
+    reflowedLineEnd = uniformLineCount;
+
+    for (int i = 0; i < childCount; i++) {
+      View child = getChildAt(i);
+      child.measure(childWidthMeasureSpec, childHeightMeasureSpec);
+      LayoutParam lp = (LayoutParam) child.getLayoutParams();
+      int line = i / columnCount;
+      lp.left = getUniformLineLeft(line) + (i - line * columnCount) * cellWidth
+          + spacingHorizontal / 2;
+      lp.top = getLineTop(line) + spacingVertical / 2;
+    }
+
+    int measuredWidth = (widthMode == MeasureSpec.UNSPECIFIED || widthMode == MeasureSpec.AT_MOST)
+        ? Math.min(childCount, columnCount) * cellWidth + getPaddingRight() + getPaddingLeft()
+        : widthSize;
+    int measuredHeight =
+        (heightMode == MeasureSpec.UNSPECIFIED || heightMode == MeasureSpec.AT_MOST)
+            ? uniformLineCount * cellHeight + getPaddingTop() + getPaddingBottom() : heightSize;
+
+    setMeasuredDimension(measuredWidth, measuredHeight);
+  }
+
+  /**
+   * measure first child with its own params ,only when it's a new child or it changed
+   */
+  private void measureFirstChild() {
+    View child = getChildAt(0);
+    if (child == uniformSizeChild && !child.isLayoutRequested()) {
+      return;
+    }
+    LayoutParam lp = (LayoutParam) child.getLayoutParams();
+    int childWidthMeasureSpec = lp.width >= 0
+        ? MeasureSpec.makeMeasureSpec(lp.width, MeasureSpec.EXACTLY)
+        : MeasureSpec.makeMeasureSpec(Math.max(0, availableWidth), MeasureSpec.AT_MOST);
+    int childHeightMeasureSpec = lp.height >= 0
+        ? MeasureSpec.makeMeasureSpec(lp.height, MeasureSpec.EXACTLY)
+        : MeasureSpec.makeMeasureSpec(0, MeasureSpec.UNSPECIFIED);
+    child.measure(childWidthMeasureSpec, childHeightMeasureSpec);
+    firstChildWidth = child.getMeasuredWidth();
+    firstChildHeight = child.getMeasuredHeight();
+    uniformSizeChild = child;
+  }
+
+  private int getUniformLineLeft(int line) {
+    int lineWidth = (Math.min(uniformChildCount, (line + 1) * columnCount) - line * columnCount)
+        * cellWidth;
+    switch (gravity) {
+      case GRAVITY_CENTER:
+        return getPaddingLeft() + (availableWidth - lineWidth) / 2;
+      case GRAVITY_RIGHT:
+      case GRAVITY_BOTTOM:
+        return getPaddingLeft() + (availableWidth - lineWidth);
+      default:
+        return getPaddingLeft();
+    }
+  }
+
+  private void endLine(int extraSpacing) {
+    // when every line ends , child in weight list will be calculated
+    measureWeightChildHorizontal(weightChildList, extraSpacing,
+        totalWeight);
+    int currentLineTotalWidth = 0;
+    for (int childIndex : currentLineChildIndex) {
+      View child = getChildAt(childIndex);
+      currentLineTotalWidth += child.getMeasuredWidth();
+    }
+    lineWidthList.add(currentLineTotalWidth);
+    lineChildIndex.add(currentLineChildIndex);
+    lineHeightList.add(currentLineHeight);
+    maxWidth = Math.max(currentLineWidth, maxWidth);
+    if (debugOverlay != null) {
+      debugOverlay.endLine(lineBase + lineChildIndex.size() - 1);
+    }
+  }
+
+  private void newLine() {
+    // create new
+    currentLineChildIndex = new ArrayList<Integer>();
+    currentLineHeight = 0;
+    currentLineWidth = getPaddingLeft();
+    totalWeight = 0;
+    if (debugOverlay != null) {
+      debugOverlay.startLine();
+    }
+  }
+
+  private void measureWeightChildHorizontal(List<Integer> weightChildList, int extraSpacing,
+      float totalWeight) {
+    while (weightChildList.size() > 0) {
+      int childIndex = weightChildList.get(0);
+      View weightChild = getChildAt(childIndex);
+      LayoutParam lp = (LayoutParam) weightChild.getLayoutParams();
+
+      int childWidthMode = MeasureSpec.EXACTLY;
+      int childHeightMode = MeasureSpec.EXACTLY;
+      int childWidthSize = (int) (lp.weight / totalWeight * extraSpacing);
+      int childHeightSize = lp.height;
+
+      if (childWidthSize + lp.leftMargin + lp.rightMargin != 0) {
+        currentLineHeight =
+            Math.max(currentLineHeight, childHeightSize + lp.topMargin + lp.bottomMargin);
+      }
+      weightChild.measure(MeasureSpec.makeMeasureSpec(childWidthSize, childWidthMode),
+          MeasureSpec.makeMeasureSpec(childHeightSize, childHeightMode));
+      weightChildList.remove(0);
+    }
+  }
+
+  private void measureVertically(int widthMeasureSpec, int heightMeasureSpec) {
+    int widthSize = MeasureSpec.getSize(widthMeasureSpec);
+    int heightSize = MeasureSpec.getSize(heightMeasureSpec);
+    int widthMode = MeasureSpec.getMode(widthMeasureSpec);
+    int heightMode = MeasureSpec.getMode(heightMeasureSpec);
     availableHeight = heightSize - getPaddingTop() - getPaddingBottom();
 
     weightChildList = new ArrayList<Integer>();
@@ -370,6 +1020,7 @@ public class FlowLayout extends ViewGroup {
     rowHeightList = new ArrayList<Integer>();
 
     maxHeight = 0;
+    lineNum = LayoutParam.LINE_NUM_INVALID;
     newRow();
     for (int i = 0; i < getChildCount(); i++) {
       View child = getChildAt(i);
@@ -572,10 +1223,340 @@ public class FlowLayout extends ViewGroup {
   @Override
   protected void onLayout(boolean changed, int l, int t, int r, int b) {
     layoutChild(changed, l, t, r, b);
+    layoutGeneration++;
+    inLayout = true;
+    try {
+      inflatePlaceholdersNearViewport();
+    } finally {
+      inLayout = false;
+    }
+  }
+
+  @Override
+  protected void dispatchDraw(Canvas canvas) {
+    super.dispatchDraw(canvas);
+    if (debugOverlay != null) {
+      debugOverlay.draw(this, canvas);
+    }
+  }
+
+  @Override
+  protected void onAttachedToWindow() {
+    super.onAttachedToWindow();
+    attached = true;
+    updateScrollListener();
+  }
+
+  @Override
+  protected void onDetachedFromWindow() {
+    attached = false;
+    updateScrollListener();
+    super.onDetachedFromWindow();
+  }
+
+  @Override
+  public void onViewAdded(View child) {
+    super.onViewAdded(child);
+    if (child instanceof FlowPlaceholder) {
+      placeholderCount++;
+      updateScrollListener();
+    }
+  }
+
+  @Override
+  public void onViewRemoved(View child) {
+    super.onViewRemoved(child);
+    if (child instanceof FlowPlaceholder) {
+      placeholderCount--;
+      updateScrollListener();
+    }
+  }
+
+  /**
+   * viewport is only watched while a placeholder may need to be inflated
+   */
+  private void updateScrollListener() {
+    boolean needed = attached && placeholderCount > 0;
+    if (needed == scrollListenerAdded) {
+      return;
+    }
+    if (needed) {
+      getViewTreeObserver().addOnScrollChangedListener(scrollChangedListener);
+    } else {
+      getViewTreeObserver().removeOnScrollChangedListener(scrollChangedListener);
+    }
+    scrollListenerAdded = needed;
+  }
+
+  @Override
+  public void requestLayout() {
+    // any change may move every child ,paths which know what changed keep their reflow range
+    if (!keepReflow) {
+      reflowFrom = REFLOW_NONE;
+      reflowTo = REFLOW_END;
+    }
+    super.requestLayout();
+  }
+
+  @Override
+  public void addView(View child, int index, LayoutParams params) {
+    if (index >= 0 && index != getChildCount()) {
+      super.addView(child, index, params);
+      return;
+    }
+    markReflow(getChildCount(), REFLOW_END);
+    keepReflow = true;
+    try {
+      super.addView(child, index, params);
+    } finally {
+      keepReflow = false;
+    }
+  }
+
+  /**
+   * add children at the end with one layout request ,only lines from the last one on are flowed
+   * and positioned in next measure ,so appending a page costs as much as the page
+   */
+  public void appendViews(List<View> children) {
+    if (children.isEmpty()) {
+      return;
+    }
+    markReflow(getChildCount(), REFLOW_END);
+    for (View child : children) {
+      LayoutParams params = child.getLayoutParams();
+      if (params == null) {
+        params = generateDefaultLayoutParams();
+      } else if (!checkLayoutParams(params)) {
+        params = generateLayoutParams(params);
+      }
+      addViewInLayout(child, -1, params, true);
+    }
+    requestLayoutKeepingReflow();
+    invalidate();
+  }
+
+  /**
+   * report a child whose size changes ,only lines from the one holding it on are flowed in next
+   * measure
+   * a child requesting layout after this one already requested layout, e.g. text of a chip set
+   * right after appendViews, doesn't reach this one and would keep its old size ,so such a change
+   * must be reported here ,before or after the change
+   */
+  public void requestChildLayout(View child) {
+    int index = indexOfChild(child);
+    if (index < 0) {
+      return;
+    }
+    // whole flow is left when nothing could be recorded
+    markReflow(index, index);
+    if (inLayout) {
+      removeCallbacks(reflowRequest);
+      post(reflowRequest);
+    } else {
+      requestLayoutKeepingReflow();
+    }
+  }
+
+  /**
+   * move child at from to index to ,children in between shift by one ,child is not measured
+   * again ,and only lines from the one holding the first moved child on are flowed in next
+   * measure ,flow stops as soon as it reaches a child after the moved range in the same state as
+   * last pass and the same count of lines before it ,tables of the children and lines after it
+   * are still shifted ,so only measuring is bound to the lines it changes
+   */
+  public void moveView(int from, int to) {
+    if (from == to) {
+      return;
+    }
+    View child = getChildAt(from);
+    LayoutParams params = child.getLayoutParams();
+    markReflow(Math.min(from, to), Math.max(from, to));
+    detachViewFromParent(from);
+    attachViewToParent(child, to, params);
+    requestLayoutKeepingReflow();
+    invalidate();
+  }
+
+  /**
+   * hide or show children of given group with one layout request ,a hidden group takes no place
+   * but still ends the line before it ,its children are GONE ,and VISIBLE again when shown
+   * only this group is flowed again in next measure ,groups after it are not flowed but their
+   * tables are still shifted ,unless children changed another way since last measure ,then every
+   * child is flowed
+   */
+  public void setGroupHidden(int group, boolean hidden) {
+    List<Integer> starts = getGroupStarts();
+    int start = starts.get(group);
+    int end = group + 1 < starts.size() ? starts.get(group + 1) : getChildCount();
+    // nothing is recorded when tables of last pass don't match children any more
+    markReflow(start, end - 1);
+    keepReflow = true;
+    try {
+      for (int i = start; i < end; i++) {
+        View child = getChildAt(i);
+        ((LayoutParam) child.getLayoutParams()).hidden = hidden;
+        child.setVisibility(hidden ? GONE : VISIBLE);
+      }
+    } finally {
+      keepReflow = false;
+    }
+    requestLayoutKeepingReflow();
+    invalidate();
+  }
+
+  public boolean isGroupHidden(int group) {
+    return ((LayoutParam) getChildAt(getGroupStart(group)).getLayoutParams()).hidden;
+  }
+
+  /**
+   * replace children of given group with one layout request ,new children take lineNum of the
+   * group and are shown ,only this group is flowed in next measure ,groups after it are not flowed
+   * but their tables are still shifted ,unless children changed another way since last measure
+   * ,then every child is flowed
+   */
+  public void replaceGroup(int group, List<View> children) {
+    List<Integer> starts = getGroupStarts();
+    int start = starts.get(group);
+    int end = group + 1 < starts.size() ? starts.get(group + 1) : getChildCount();
+    int groupLineNum = ((LayoutParam) getChildAt(start).getLayoutParams()).lineNum;
+    if (end > measuredChildCount || !markReflow(start, start - 1)) {
+      // tables of last pass don't hold every child of the group ,e.g. some were appended since
+      reflowFrom = REFLOW_NONE;
+      reflowTo = REFLOW_END;
+    } else {
+      replaceChildrenInTables(start, end - start, children.size());
+    }
+    removeViewsInLayout(start, end - start);
+    for (int i = 0; i < children.size(); i++) {
+      View child = children.get(i);
+      LayoutParams params = child.getLayoutParams();
+      LayoutParam lp;
+      if (params instanceof LayoutParam) {
+        lp = (LayoutParam) params;
+      } else if (params == null) {
+        lp = generateDefaultLayoutParams();
+      } else {
+        lp = generateLayoutParams(params);
+      }
+      lp.lineNum = groupLineNum;
+      lp.hidden = false;
+      addViewInLayout(child, start + i, lp, true);
+    }
+    requestLayoutKeepingReflow();
+    invalidate();
+  }
+
+  /**
+   * record children from until to as changed ,so next measure flows from there instead of from
+   * the start ,nothing is recorded if layout was already requested for another change
+   *
+   * @return false if whole flow runs again in next measure
+   */
+  private boolean markReflow(int from, int to) {
+    boolean pending = reflowFrom != REFLOW_NONE;
+    // layout is still marked as requested while it runs
+    if (!pending && isLayoutRequested() && !inLayout) {
+      return false;
+    }
+    if (!pending || from < reflowFrom) {
+      if (from > measuredChildCount) {
+        // no state of last pass to start from
+        reflowFrom = REFLOW_NONE;
+        reflowTo = REFLOW_END;
+        return false;
+      }
+      restartLineWidth = snapLineWidth[from];
+      restartLineHeight = snapLineHeight[from];
+      restartLineNum = snapLineNum[from];
+      restartMaxWidth = snapMaxWidth[from];
+      restartLineCount = snapLineCount[from];
+      restartLineStart = snapLineStart[from];
+      reflowFrom = from;
+    }
+    reflowTo = pending ? Math.max(reflowTo, to) : to;
+    return true;
+  }
+
+  /**
+   * move tables of last pass after removed children from at until at + removed are replaced by
+   * added ones ,so children after them are found in their new place by next measure
+   */
+  private void replaceChildrenInTables(int at, int removed, int added) {
+    int delta = added - removed;
+    int oldEnd = at + removed;
+    if (delta != 0) {
+      ensureSnapshotCapacity(measuredChildCount + 1 + delta);
+      int length = measuredChildCount + 1 - oldEnd;
+      System.arraycopy(snapLineWidth, oldEnd, snapLineWidth, oldEnd + delta, length);
+      System.arraycopy(snapLineHeight, oldEnd, snapLineHeight, oldEnd + delta, length);
+      System.arraycopy(snapLineNum, oldEnd, snapLineNum, oldEnd + delta, length);
+      System.arraycopy(snapMaxWidth, oldEnd, snapMaxWidth, oldEnd + delta, length);
+      System.arraycopy(snapLineCount, oldEnd, snapLineCount, oldEnd + delta, length);
+      System.arraycopy(snapLineStart, oldEnd, snapLineStart, oldEnd + delta, length);
+    }
+    for (int i = at + added; i <= measuredChildCount + delta; i++) {
+      if (snapLineStart[i] >= oldEnd) {
+        snapLineStart[i] += delta;
+      } else if (snapLineStart[i] >= at) {
+        // line started with a removed child ,it never matches again
+        snapLineStart[i] = -1;
+      }
+    }
+    if (delta != 0) {
+      for (List<Integer> childIndex : lineChildIndex) {
+        for (int k = 0; k < childIndex.size(); k++) {
+          if (childIndex.get(k) >= oldEnd) {
+            childIndex.set(k, childIndex.get(k) + delta);
+          }
+        }
+      }
+    }
+    for (int group = groupStartList.size() - 1; group > 0; group--) {
+      int start = groupStartList.get(group);
+      if (start >= oldEnd && start + delta > 0) {
+        groupStartList.set(group, start + delta);
+      } else if (start > at || (start == at && added == 0)) {
+        // group of removed children ,or first group is gone and the next one takes its place
+        groupStartList.remove(group);
+        groupLineList.remove(group);
+        groupWidthList.remove(group);
+      } else {
+        break;
+      }
+    }
+    if (reflowTo != REFLOW_END && reflowTo >= oldEnd) {
+      reflowTo += delta;
+    }
+    reflowTo = Math.max(reflowTo, at + added - 1);
+    measuredChildCount += delta;
+  }
+
+  private void requestLayoutKeepingReflow() {
+    keepReflow = true;
+    try {
+      requestLayout();
+    } finally {
+      keepReflow = false;
+    }
   }
 
   private void layoutChild(boolean changed, int l, int t, int r, int b) {
-    for (int i = 0; i < getChildCount(); i++) {
+    if (reflowAnimator != null) {
+      reflowAnimator.beginLayout(this);
+    }
+    int start = 0;
+    int end = getChildCount();
+    if (layoutPending && layoutLineFrom != LAYOUT_ALL) {
+      // children of other lines are where they were laid out last time
+      if (layoutLineFrom >= layoutLineEnd) {
+        end = 0;
+      } else {
+        start = getLineStart(layoutLineFrom);
+        end = Math.min(getLineEnd(layoutLineEnd - 1), end);
+      }
+    }
+    layoutPending = false;
+    for (int i = start; i < end; i++) {
       View child = getChildAt(i);
       if (child.getVisibility() == GONE) {
         continue;
@@ -584,19 +1565,468 @@ public class FlowLayout extends ViewGroup {
 
       int left = lp.left;
       int top = lp.top;
+      if (child == draggedChild) {
+        // dragged child follows the finger ,not its slot
+        child.setTranslationX(child.getLeft() + child.getTranslationX() - left);
+        child.setTranslationY(child.getTop() + child.getTranslationY() - top);
+      } else if (reflowAnimator != null) {
+        reflowAnimator.onChildLayout(child, left, top);
+      }
       child.layout(left, top, left + child.getMeasuredWidth(), top + child.getMeasuredHeight());
     }
   }
 
+  /**
+   * animate children from old position to new one whenever they move ,for example when children
+   * are added or removed
+   */
+  public void setReflowAnimationEnabled(boolean enabled) {
+    if (enabled == (reflowAnimator != null)) {
+      return;
+    }
+    reflowAnimator = enabled ? new FlowReflowAnimator() : null;
+  }
+
+  /**
+   * @param animator custom animator ,null to disable reflow animation
+   */
+  public void setReflowAnimator(FlowReflowAnimator animator) {
+    reflowAnimator = animator;
+  }
+
+  public FlowReflowAnimator getReflowAnimator() {
+    return reflowAnimator;
+  }
+
   public void setGravity(int gravity) {
-    boolean changed = gravity == this.gravity;
+    boolean changed = gravity != this.gravity;
     this.gravity = gravity;
     if (changed) {
+      // lines don't change with gravity
+      markReflow(getChildCount(), REFLOW_END);
+      requestLayoutKeepingReflow();
+      positionAllLines = true;
+    }
+  }
+
+  public int getGravity() {
+    return gravity;
+  }
+
+  public void setOrientation(int orientation) {
+    boolean changed = orientation != this.orientation;
+    this.orientation = orientation;
+    if (changed) {
+      requestLayout();
+    }
+  }
+
+  public int getOrientation() {
+    return orientation;
+  }
+
+  /**
+   * in uniform mode every child is measured with the uniform size ,margins ,weight ,lineNum and
+   * child spacing are ignored ,only horizontal orientation is supported
+   */
+  public void setUniformMode(boolean uniformMode) {
+    boolean changed = uniformMode != this.uniformMode;
+    this.uniformMode = uniformMode;
+    if (changed) {
+      uniformLineCount = 0;
+      requestLayout();
+    }
+  }
+
+  public boolean isUniformMode() {
+    return uniformMode;
+  }
+
+  /**
+   * @param width width of every child ,or UNIFORM_SIZE_FIRST_CHILD to use width of first child
+   * @param height height of every child ,or UNIFORM_SIZE_FIRST_CHILD to use height of first child
+   */
+  public void setUniformChildSize(int width, int height) {
+    boolean changed = width != uniformChildWidth || height != uniformChildHeight;
+    uniformChildWidth = width;
+    uniformChildHeight = height;
+    if (changed && uniformMode) {
+      requestLayout();
+    }
+  }
+
+  /**
+   * draw line bounds ,spacing gutters and child index over children ,for debugging only
+   */
+  public void setDebugOverlayEnabled(boolean enabled) {
+    if (enabled == (debugOverlay != null)) {
+      return;
+    }
+    if (enabled) {
+      debugOverlay = new FlowDebugOverlay(getResources().getDisplayMetrics().density);
+      debugOverlay.setColorMode(debugColorMode);
+      // collect measure time of every line
       requestLayout();
+    } else {
+      debugOverlay = null;
     }
+    invalidate();
+  }
+
+  public boolean isDebugOverlayEnabled() {
+    return debugOverlay != null;
+  }
+
+  /**
+   * @param colorMode {@link #DEBUG_COLOR_BY_COST} or {@link #DEBUG_COLOR_BY_SOURCE}
+   */
+  public void setDebugColorMode(int colorMode) {
+    debugColorMode = colorMode;
+    if (debugOverlay != null) {
+      debugOverlay.setColorMode(colorMode);
+      invalidate();
+    }
+  }
+
+  int getLayoutGeneration() {
+    return layoutGeneration;
+  }
+
+  /**
+   * @return end of lines flowed again in last measure ,lines from it on were kept from the pass
+   * before and only moved
+   */
+  public int getReflowedLineEnd() {
+    return reflowedLineEnd;
+  }
+
+  /**
+   * @param child child drawn above the others ,null when drag ends
+   */
+  void setDraggedChild(View child) {
+    draggedChild = child;
+    setChildrenDrawingOrderEnabled(child != null);
+    invalidate();
+  }
+
+  View getDraggedChild() {
+    return draggedChild;
   }
 
-  private int getChildHorizontalSpacing(View child) {
+  @Override
+  protected int getChildDrawingOrder(int childCount, int i) {
+    int draggedIndex = draggedChild == null ? -1 : indexOfChild(draggedChild);
+    if (draggedIndex < 0) {
+      return i;
+    }
+    // dragged child is drawn last
+    if (i == childCount - 1) {
+      return draggedIndex;
+    }
+    return i < draggedIndex ? i : i + 1;
+  }
+
+  /**
+   * @return first line flowed again in last measure ,lines before it were kept from the pass
+   * before ,0 if everything was flowed
+   */
+  public int getFirstReflowedLine() {
+    return firstReflowedLine;
+  }
+
+  /**
+   * number of lines of last measure ,only horizontal orientation has a line table
+   */
+  public int getLineCount() {
+    if (orientation != ORIENTATION_HORIZONTAL) {
+      return 0;
+    }
+    if (uniformMode) {
+      return uniformLineCount;
+    }
+    return lineTopList == null ? 0 : lineTopList.size();
+  }
+
+  public int getLineTop(int line) {
+    if (uniformMode) {
+      return getPaddingTop() + line * cellHeight;
+    }
+    return lineTopList.get(line);
+  }
+
+  public int getLineBottom(int line) {
+    if (uniformMode) {
+      return getLineTop(line) + cellHeight;
+    }
+    return lineTopList.get(line) + lineHeightList.get(line);
+  }
+
+  /**
+   * @return line containing given y (relative to this layout) ,clamped to first and last line,
+   * -1 if there is no line
+   */
+  public int getLineForY(int y) {
+    int low = 0;
+    int high = getLineCount() - 1;
+    if (high < 0) {
+      return -1;
+    }
+    if (uniformMode) {
+      int line = cellHeight == 0 || y < getPaddingTop() ? 0 : (y - getPaddingTop()) / cellHeight;
+      return Math.min(line, high);
+    }
+    while (low < high) {
+      int middle = (low + high + 1) >>> 1;
+      if (lineTopList.get(middle) <= y) {
+        low = middle;
+      } else {
+        high = middle - 1;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * @return index of first child in given line
+   */
+  public int getLineStart(int line) {
+    if (uniformMode) {
+      return line * columnCount;
+    }
+    List<Integer> childIndex = lineChildIndex.get(line);
+    if (!childIndex.isEmpty()) {
+      return childIndex.get(0);
+    }
+    return line == 0 ? 0 : getLineEnd(line - 1);
+  }
+
+  /**
+   * @return index after last child in given line
+   */
+  public int getLineEnd(int line) {
+    if (uniformMode) {
+      return Math.min((line + 1) * columnCount, uniformChildCount);
+    }
+    return getLineStart(line) + lineChildIndex.get(line).size();
+  }
+
+  /**
+   * number of lineNum groups of last measure ,a group is a run of children with the same lineNum
+   * ,only horizontal orientation without uniform mode has groups
+   */
+  public int getGroupCount() {
+    if (orientation != ORIENTATION_HORIZONTAL || uniformMode) {
+      return 0;
+    }
+    return getGroupStarts().size();
+  }
+
+  /**
+   * @return first child of each group ,from tables of last measure when children didn't change
+   * since ,otherwise from lineNum runs of current children ,so groups can be changed several times
+   * before next measure
+   */
+  private List<Integer> getGroupStarts() {
+    int childCount = getChildCount();
+    if (groupStartList != null && childCount > 0 && measuredChildCount == childCount
+        && !isLayoutRequested()) {
+      return groupStartList;
+    }
+    List<Integer> starts = new ArrayList<Integer>();
+    int groupLineNum = LayoutParam.LINE_NUM_INVALID;
+    for (int i = 0; i < childCount; i++) {
+      int lineNum = ((LayoutParam) getChildAt(i).getLayoutParams()).lineNum;
+      if (i == 0 || lineNum != groupLineNum) {
+        starts.add(i);
+        groupLineNum = lineNum;
+      }
+    }
+    return starts;
+  }
+
+  /**
+   * line tables of groups are the ones of last measure
+   *
+   * @throws IllegalStateException if there was no measure with groups
+   */
+  private void checkGroupLines() {
+    if (orientation != ORIENTATION_HORIZONTAL || uniformMode || groupLineList == null
+        || measuredChildCount < 0) {
+      throw new IllegalStateException(
+          "only measured horizontal orientation without uniform mode has group lines");
+    }
+  }
+
+  /**
+   * @return index of first child in given group
+   */
+  public int getGroupStart(int group) {
+    return getGroupStarts().get(group);
+  }
+
+  /**
+   * @return index after last child in given group
+   */
+  public int getGroupEnd(int group) {
+    List<Integer> starts = getGroupStarts();
+    return group + 1 < starts.size() ? starts.get(group + 1) : getChildCount();
+  }
+
+  public int getGroupLineNum(int group) {
+    return ((LayoutParam) getChildAt(getGroupStart(group)).getLayoutParams()).lineNum;
+  }
+
+  /**
+   * line and size getters of a group describe last measure ,they match current children once
+   * laid out again
+   */
+  public int getGroupFirstLine(int group) {
+    checkGroupLines();
+    return groupLineList.get(group);
+  }
+
+  public int getGroupLineCount(int group) {
+    checkGroupLines();
+    int lineEnd = group + 1 < groupLineList.size() ? groupLineList.get(group + 1) : getLineCount();
+    return lineEnd - groupLineList.get(group);
+  }
+
+  public int getGroupTop(int group) {
+    return getLineTop(getGroupFirstLine(group));
+  }
+
+  public int getGroupBottom(int group) {
+    return getLineBottom(getGroupFirstLine(group) + getGroupLineCount(group) - 1);
+  }
+
+  /**
+   * @return right of widest line in given group ,without right padding
+   */
+  public int getGroupWidth(int group) {
+    checkGroupLines();
+    return groupWidthList.get(group);
+  }
+
+  /**
+   * @return first group whose children have given lineNum ,-1 if there is none
+   */
+  public int findGroupByLineNum(int lineNum) {
+    if (orientation != ORIENTATION_HORIZONTAL || uniformMode) {
+      return -1;
+    }
+    List<Integer> starts = getGroupStarts();
+    for (int group = 0; group < starts.size(); group++) {
+      if (((LayoutParam) getChildAt(starts.get(group)).getLayoutParams()).lineNum == lineNum) {
+        return group;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * add a placeholder ,real view is inflated only when its line comes near the viewport
+   *
+   * @param lp params of real view ,a WRAP_CONTENT dimension must have a hint ,which is used
+   * instead until the real view is inflated
+   */
+  public FlowPlaceholder addPlaceholder(FlowPlaceholder.Inflater inflater, LayoutParam lp) {
+    FlowPlaceholder placeholder = new FlowPlaceholder(getContext(), inflater, lp);
+    addView(placeholder, placeholder.getLayoutParams());
+    return placeholder;
+  }
+
+  /**
+   * count of lines above and below the viewport whose placeholders are inflated
+   */
+  public void setPlaceholderPrefetchLines(int lines) {
+    placeholderPrefetchLines = lines;
+  }
+
+  /**
+   * replace placeholder at given index by its real view ,when the real size equals the hint
+   * it is placed right away ,otherwise layout is requested and only lines from the one of the
+   * placeholder on are flowed again
+   *
+   * @return child at given index after inflation
+   */
+  public View inflatePlaceholder(int index) {
+    View child = getChildAt(index);
+    if (!(child instanceof FlowPlaceholder)) {
+      return child;
+    }
+    FlowPlaceholder placeholder = (FlowPlaceholder) child;
+    LayoutParam placeholderLp = (LayoutParam) placeholder.getLayoutParams();
+    LayoutParam lp = placeholder.getRealLayoutParams();
+    View view = placeholder.inflate(this);
+    lp.left = placeholderLp.left;
+    lp.top = placeholderLp.top;
+    removeViewInLayout(placeholder);
+    addViewInLayout(view, index, lp, true);
+
+    int width = placeholder.getMeasuredWidth();
+    int height = placeholder.getMeasuredHeight();
+    view.measure(getRealMeasureSpec(lp.width, width), getRealMeasureSpec(lp.height, height));
+    if (view.getMeasuredWidth() == width && view.getMeasuredHeight() == height) {
+      // hint was right ,nothing moves
+      view.layout(lp.left, lp.top, lp.left + width, lp.top + height);
+      invalidate();
+    } else {
+      // whole flow is left when nothing could be recorded
+      markReflow(index, index);
+      if (inLayout) {
+        removeCallbacks(reflowRequest);
+        post(reflowRequest);
+      } else {
+        requestLayoutKeepingReflow();
+      }
+    }
+    return view;
+  }
+
+  /**
+   * count of placeholders not inflated yet
+   */
+  public int getPlaceholderCount() {
+    return placeholderCount;
+  }
+
+  public void inflateAllPlaceholders() {
+    for (int i = 0; i < getChildCount() && placeholderCount > 0; i++) {
+      inflatePlaceholder(i);
+    }
+  }
+
+  private int getRealMeasureSpec(int size, int placeholderSize) {
+    // WRAP_CONTENT was hinted ,see how big the real view wants to be
+    return size == LayoutParams.WRAP_CONTENT
+        ? MeasureSpec.makeMeasureSpec(0, MeasureSpec.UNSPECIFIED)
+        : MeasureSpec.makeMeasureSpec(placeholderSize, MeasureSpec.EXACTLY);
+  }
+
+  private void inflatePlaceholdersNearViewport() {
+    if (placeholderCount <= 0) {
+      return;
+    }
+    if (orientation != ORIENTATION_HORIZONTAL) {
+      // no line table ,nothing is deferred
+      inflateAllPlaceholders();
+      return;
+    }
+    if (getLineCount() == 0 || !getLocalVisibleRect(visibleRect)) {
+      return;
+    }
+    int firstLine = Math.max(0, getLineForY(visibleRect.top) - placeholderPrefetchLines);
+    int lastLine =
+        Math.min(getLineCount() - 1, getLineForY(visibleRect.bottom) + placeholderPrefetchLines);
+    int end = Math.min(getLineEnd(lastLine), getChildCount());
+    for (int i = getLineStart(firstLine); i < end; i++) {
+      if (getChildAt(i) instanceof FlowPlaceholder) {
+        inflatePlaceholder(i);
+      }
+    }
+  }
+
+  int getChildHorizontalSpacing(View child) {
     LayoutParam lp = (LayoutParam) child.getLayoutParams();
     int childHorizontalSpacing = horizontalSpacing == SPACING_NONE ? 0 : horizontalSpacing;
 
@@ -605,7 +2035,7 @@ public class FlowLayout extends ViewGroup {
     return childHorizontalSpacing;
   }
 
-  private int getChildVerticalSpacing(View child) {
+  int getChildVerticalSpacing(View child) {
     LayoutParam lp = (LayoutParam) child.getLayoutParams();
     int childVerticalSpacing = verticalSpacing == SPACING_NONE ? 0 : verticalSpacing;
 
@@ -614,6 +2044,11 @@ public class FlowLayout extends ViewGroup {
     return childVerticalSpacing;
   }
 
+  @Override
+  protected boolean checkLayoutParams(LayoutParams p) {
+    return p instanceof LayoutParam;
+  }
+
   @Override
   protected LayoutParam generateDefaultLayoutParams() {
     return new LayoutParam(LayoutParams.MATCH_PARENT, LayoutParams.MATCH_PARENT);
@@ -632,12 +2067,22 @@ public class FlowLayout extends ViewGroup {
   public static class LayoutParam extends MarginLayoutParams {
 
     public static final int LINE_NUM_INVALID = Integer.MIN_VALUE;
+    public static final int HINT_NONE = -1;
     public float weight = -1;
     public int lineNum = LINE_NUM_INVALID;
     public int horizontalSpacing = 0;
     public int verticalSpacing = 0;
     public int left = -1;
     public int top = -1;
+    /**
+     * estimated or known size ,used for WRAP_CONTENT dimension of a placeholder
+     */
+    public int hintWidth = HINT_NONE;
+    public int hintHeight = HINT_NONE;
+    /**
+     * set by {@link FlowLayout#setGroupHidden(int, boolean)} ,child takes no place in flow
+     */
+    boolean hidden = false;
 
     public LayoutParam(int width, int height) {
       super(width, height);
@@ -655,6 +2100,8 @@ public class FlowLayout extends ViewGroup {
             a.getDimensionPixelSize(R.styleable.FlowLayout_childHorizontalSpacing, SPACING_NONE);
         verticalSpacing =
             a.getDimensionPixelSize(R.styleable.FlowLayout_childVerticalSpacing, SPACING_NONE);
+        hintWidth = a.getDimensionPixelSize(R.styleable.FlowLayout_hintWidth, HINT_NONE);
+        hintHeight = a.getDimensionPixelSize(R.styleable.FlowLayout_hintHeight, HINT_NONE);
       } finally {
         a.recycle();
       }
@@ -663,6 +2110,17 @@ public class FlowLayout extends ViewGroup {
     public LayoutParam(LayoutParams source) {
       super(source);
     }
+
+    public LayoutParam(LayoutParam source) {
+      super(source);
+      weight = source.weight;
+      lineNum = source.lineNum;
+      horizontalSpacing = source.horizontalSpacing;
+      verticalSpacing = source.verticalSpacing;
+      hintWidth = source.hintWidth;
+      hintHeight = source.hintHeight;
+      hidden = source.hidden;
+    }
   }
 
 }
@@ -0,0 +1,520 @@
+package com.suan.flowlayout;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * function for this class:
+ * compute line breaks of the horizontal flow of {@link FlowLayout} over packed size arrays,
+ * without any View, so it can be used for very large item sets (even on a backend JVM)
+ *
+ * the result is exactly what {@link FlowLayout} measureHorizontally produces once child sizes
+ * are known: same lines (including the empty ones), same lineNum groups, same extra spacing
+ * handed to weight children and same line heights
+ *
+ * parallel mode:
+ * a line only depends on where it starts, it starts with the width of an item which overflowed
+ * (without padding) or with padding before an item (after a lineNum break or a MATCH_PARENT child)
+ * 1.items are split into chunks, for every item of a chunk the end of a line it overflows into
+ * is found, with two pointers since line end only moves forward with line start
+ * 2.lines are walked from the first item, every step jumps to the next line start, so this
+ * sequential part costs as much as the lines ,only lines starting with padding are flowed here
+ * 3.line heights are computed per line, chunk by chunk
+ */
+public class FlowLineBreaker {
+
+  public static final int TYPE_NORMAL = 0;
+  public static final int TYPE_MATCH_PARENT = 1;
+  public static final int TYPE_WEIGHT = 2;
+
+  /**
+   * reason a line was started
+   */
+  public static final int BREAK_START = 0;
+  public static final int BREAK_LINE_NUM = 1;
+  public static final int BREAK_MATCH_PARENT = 2;
+  public static final int BREAK_OVERFLOW = 3;
+
+  /**
+   * chunk smaller than this is not worth a task
+   */
+  private static final int MIN_CHUNK_SIZE = 16 * 1024;
+
+  /**
+   * same values as in FlowLayout.LayoutParam ,copied so this class needs no Android class and
+   * runs on a plain JVM
+   */
+  private static final int MATCH_PARENT = -1;
+  private static final int LINE_NUM_INVALID = Integer.MIN_VALUE;
+
+  public static int typeOf(int width, float weight) {
+    if (width == MATCH_PARENT) {
+      return TYPE_MATCH_PARENT;
+    } else if (width == 0 && weight != 0) {
+      return TYPE_WEIGHT;
+    }
+    return TYPE_NORMAL;
+  }
+
+  /**
+   * flow items sequentially
+   *
+   * @param paddingLeft left padding of container
+   * @param availableWidth container width without padding
+   */
+  public static Lines breakLines(Items items, int paddingLeft, int availableWidth) {
+    Run run = new Run();
+    flow(items, paddingLeft, availableWidth, run);
+    Lines lines = new Lines(run.count + 1);
+    lines.append(run, 0, run.count);
+    lines.add(items.count, availableWidth - run.width, run.width);
+    computeHeights(items, lines, 0, lines.count);
+    return lines;
+  }
+
+  /**
+   * flow items on a pool with {@code parallelism} threads, result is identical to
+   * {@link #breakLines(Items, int, int)}
+   */
+  public static Lines breakLinesParallel(Items items, int paddingLeft, int availableWidth,
+      int parallelism) {
+    ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+    try {
+      return breakLinesParallel(items, paddingLeft, availableWidth, executor, parallelism);
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  /**
+   * flow items on given executor, items are split into about {@code parallelism} * 4 chunks
+   */
+  public static Lines breakLinesParallel(final Items items, final int paddingLeft,
+      final int availableWidth, ExecutorService executor, int parallelism) {
+    final int count = items.count;
+    int chunkCount = Math.min(parallelism * 4, count / MIN_CHUNK_SIZE);
+    if (chunkCount <= 1) {
+      return breakLines(items, paddingLeft, availableWidth);
+    }
+    final LineEnds lineEnds = new LineEnds(count);
+
+    // 1.end of the line every item would overflow into
+    List<Future<Void>> futures = new ArrayList<Future<Void>>(chunkCount);
+    for (int c = 0; c < chunkCount; c++) {
+      final int from = (int) ((long) count * c / chunkCount);
+      final int to = (int) ((long) count * (c + 1) / chunkCount);
+      futures.add(executor.submit(new Callable<Void>() {
+        @Override
+        public Void call() {
+          findLineEnds(items, from, to, availableWidth, lineEnds);
+          return null;
+        }
+      }));
+    }
+    for (Future<Void> future : futures) {
+      get(future);
+    }
+
+    // 2.walk from line start to line start
+    final Lines lines = walkLines(items, paddingLeft, availableWidth, lineEnds);
+
+    // 3.line heights
+    futures.clear();
+    for (int c = 0; c < chunkCount; c++) {
+      final int fromLine = (int) ((long) lines.count * c / chunkCount);
+      final int toLine = (int) ((long) lines.count * (c + 1) / chunkCount);
+      futures.add(executor.submit(new Callable<Void>() {
+        @Override
+        public Void call() {
+          computeHeights(items, lines, fromLine, toLine);
+          return null;
+        }
+      }));
+    }
+    for (Future<Void> future : futures) {
+      get(future);
+    }
+    return lines;
+  }
+
+  /**
+   * for every item in [from, to) find where a line ends when the item overflowed into it ,a line
+   * may end after {@code to}
+   */
+  private static void findLineEnds(Items items, int from, int to, int availableWidth,
+      LineEnds lineEnds) {
+    // line started by overflowed item holds items [start, end) of given width
+    int end = from + 1;
+    int width = sizeOf(items, from);
+    for (int start = from; start < to; start++) {
+      if (start > from) {
+        width -= sizeOf(items, start - 1);
+        if (end < start + 1) {
+          end = start + 1;
+          width = sizeOf(items, start);
+        }
+      }
+      while (end < items.count && fits(items, start, end, width, availableWidth)) {
+        width += sizeOf(items, end);
+        end++;
+      }
+      lineEnds.end[start] = end;
+      lineEnds.width[start] = width;
+    }
+  }
+
+  /**
+   * @return whether item is put in a line started at given item ,which has given width before it
+   */
+  private static boolean fits(Items items, int start, int item, int width, int availableWidth) {
+    if (item > start && items.lineNum[item] != items.lineNum[item - 1]) {
+      return false;
+    }
+    switch (items.type[item]) {
+      case TYPE_MATCH_PARENT:
+        return false;
+      case TYPE_WEIGHT:
+        return true;
+      default:
+        return width + sizeOf(items, item) <= availableWidth;
+    }
+  }
+
+  /**
+   * width an item takes in line ,weight items take their share only when line ends
+   */
+  private static int sizeOf(Items items, int item) {
+    return items.type[item] == TYPE_NORMAL
+        ? items.width[item] + items.horizontalMargin[item] + items.horizontalSpacing[item] : 0;
+  }
+
+  /**
+   * same events as {@link #flow} ,but every step is a whole line
+   */
+  private static Lines walkLines(Items items, int paddingLeft, int availableWidth,
+      LineEnds lineEnds) {
+    int count = items.count;
+    Lines lines = new Lines(count / 8 + 16);
+    int start = 0;
+    // whether start item overflowed into its line ,otherwise line starts with padding before it
+    boolean overflowed = false;
+    // whether lineNum of start item is not checked yet
+    boolean checkLineNum = true;
+    int width;
+    while (true) {
+      if (checkLineNum) {
+        if (start == count) {
+          width = paddingLeft;
+          break;
+        }
+        int lineNum = start == 0 ? LINE_NUM_INVALID : items.lineNum[start - 1];
+        if (items.lineNum[start] != lineNum) {
+          lines.add(start, availableWidth - paddingLeft, paddingLeft, BREAK_LINE_NUM);
+        }
+        checkLineNum = false;
+      }
+      int end;
+      if (overflowed) {
+        end = lineEnds.end[start];
+        width = lineEnds.width[start];
+      } else {
+        // only after a lineNum break or a MATCH_PARENT child ,flowed here
+        end = start;
+        width = paddingLeft;
+        while (end < count && fits(items, start, end, width, availableWidth)) {
+          width += sizeOf(items, end);
+          end++;
+        }
+      }
+      if (end == count) {
+        break;
+      }
+      if (end > start && items.lineNum[end] != items.lineNum[end - 1]) {
+        lines.add(end, availableWidth - width, width, BREAK_LINE_NUM);
+        overflowed = false;
+      } else if (items.type[end] == TYPE_MATCH_PARENT) {
+        if (width + items.horizontalMargin[end] + items.horizontalSpacing[end] > availableWidth) {
+          // end last line
+          lines.add(end, 0, width, BREAK_MATCH_PARENT);
+        }
+        // take place all the extra spacing
+        lines.add(end + 1, 0, paddingLeft + availableWidth, BREAK_MATCH_PARENT);
+        end++;
+        overflowed = false;
+        checkLineNum = true;
+      } else {
+        lines.add(end, availableWidth - width, width, BREAK_OVERFLOW);
+        overflowed = true;
+      }
+      start = end;
+    }
+    // end last line
+    lines.add(count, availableWidth - width, width);
+    return lines;
+  }
+
+  private static <T> T get(Future<T> future) {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException(e);
+    } catch (ExecutionException e) {
+      throw new IllegalStateException(e.getCause());
+    }
+  }
+
+  /**
+   * flow items the same way as FlowLayout measureHorizontally does
+   */
+  private static void flow(Items items, int paddingLeft, int availableWidth, Run run) {
+    int width = paddingLeft;
+    int lineNum = LINE_NUM_INVALID;
+    for (int i = 0; i < items.count; i++) {
+      if (items.lineNum[i] != lineNum) {
+        run.add(i, BREAK_LINE_NUM, availableWidth - width, width);
+        width = paddingLeft;
+        lineNum = items.lineNum[i];
+      }
+      switch (items.type[i]) {
+        case TYPE_MATCH_PARENT:
+          if (width + items.horizontalMargin[i] + items.horizontalSpacing[i] > availableWidth) {
+            // end last line
+            run.add(i, BREAK_MATCH_PARENT, 0, width);
+          }
+          // take place all the extra spacing
+          run.add(i + 1, BREAK_MATCH_PARENT, 0, paddingLeft + availableWidth);
+          width = paddingLeft;
+          break;
+        case TYPE_WEIGHT:
+          break;
+        default:
+          int size = items.width[i] + items.horizontalMargin[i] + items.horizontalSpacing[i];
+          if (width + size <= availableWidth) {
+            width += size;
+          } else {
+            run.add(i, BREAK_OVERFLOW, availableWidth - width, width);
+            width = size;
+          }
+          break;
+      }
+    }
+    run.width = width;
+  }
+
+  private static void computeHeights(Items items, Lines lines, int fromLine, int toLine) {
+    for (int line = fromLine; line < toLine; line++) {
+      int start = lines.getStart(line);
+      int end = lines.end[line];
+      float totalWeight = 0f;
+      for (int i = start; i < end; i++) {
+        if (items.type[i] == TYPE_WEIGHT) {
+          totalWeight += items.weight[i];
+        }
+      }
+      int height = 0;
+      for (int i = start; i < end; i++) {
+        switch (items.type[i]) {
+          case TYPE_WEIGHT:
+            int weightWidth = (int) (items.weight[i] / totalWeight * lines.extraSpacing[line]);
+            if (weightWidth + items.horizontalMargin[i] != 0) {
+              height = Math.max(height, items.height[i] + items.verticalMargin[i]);
+            }
+            break;
+          case TYPE_NORMAL:
+            // child overflowed into this line is always taken into account
+            if (items.width[i] + items.horizontalMargin[i] == 0
+                && !(i == start && lines.reason[line] == BREAK_OVERFLOW)) {
+              break;
+            }
+            // fall through
+          default:
+            height = Math.max(height,
+                items.height[i] + items.verticalMargin[i] + items.verticalSpacing[i]);
+            break;
+        }
+      }
+      lines.height[line] = height;
+    }
+  }
+
+  /**
+   * packed sizes of items ,one slot per child
+   */
+  public static class Items {
+
+    public int count;
+    public int[] type;
+    /**
+     * width taken in line ,for WRAP_CONTENT it is the measured width
+     */
+    public int[] width;
+    /**
+     * measured height ,for weight item it is height of LayoutParam
+     */
+    public int[] height;
+    public int[] horizontalMargin;
+    public int[] verticalMargin;
+    public int[] horizontalSpacing;
+    public int[] verticalSpacing;
+    public int[] lineNum;
+    public float[] weight;
+
+    public Items(int capacity) {
+      type = new int[capacity];
+      width = new int[capacity];
+      height = new int[capacity];
+      horizontalMargin = new int[capacity];
+      verticalMargin = new int[capacity];
+      horizontalSpacing = new int[capacity];
+      verticalSpacing = new int[capacity];
+      lineNum = new int[capacity];
+      weight = new float[capacity];
+    }
+
+    public void add(int type, int width, int height, int horizontalMargin, int verticalMargin,
+        int horizontalSpacing, int verticalSpacing, int lineNum, float weight) {
+      if (count == this.type.length) {
+        grow(Math.max(16, count * 2));
+      }
+      this.type[count] = type;
+      this.width[count] = width;
+      this.height[count] = height;
+      this.horizontalMargin[count] = horizontalMargin;
+      this.verticalMargin[count] = verticalMargin;
+      this.horizontalSpacing[count] = horizontalSpacing;
+      this.verticalSpacing[count] = verticalSpacing;
+      this.lineNum[count] = lineNum;
+      this.weight[count] = weight;
+      count++;
+    }
+
+    private void grow(int capacity) {
+      type = copyOf(type, capacity);
+      width = copyOf(width, capacity);
+      height = copyOf(height, capacity);
+      horizontalMargin = copyOf(horizontalMargin, capacity);
+      verticalMargin = copyOf(verticalMargin, capacity);
+      horizontalSpacing = copyOf(horizontalSpacing, capacity);
+      verticalSpacing = copyOf(verticalSpacing, capacity);
+      lineNum = copyOf(lineNum, capacity);
+      float[] newWeight = new float[capacity];
+      System.arraycopy(weight, 0, newWeight, 0, count);
+      weight = newWeight;
+    }
+  }
+
+  /**
+   * result of line breaking ,line i holds items [getStart(i), end[i])
+   */
+  public static class Lines {
+
+    public int count;
+    public int[] end;
+    public int[] reason;
+    /**
+     * extra spacing shared by weight children when line ended
+     */
+    public int[] extraSpacing;
+    /**
+     * current line width when line ended ,maxWidth is the biggest one
+     */
+    public int[] usedWidth;
+    public int[] height;
+    public int maxWidth;
+
+    Lines(int capacity) {
+      end = new int[capacity];
+      reason = new int[capacity];
+      extraSpacing = new int[capacity];
+      usedWidth = new int[capacity];
+      height = new int[capacity];
+    }
+
+    public int getStart(int line) {
+      return line == 0 ? 0 : end[line - 1];
+    }
+
+    private void add(int lineEnd, int lineExtraSpacing, int lineUsedWidth) {
+      // keep one more slot ,reason of next line is known before it ends
+      if (count + 1 >= end.length) {
+        int capacity = count * 2 + 16;
+        end = copyOf(end, capacity);
+        reason = copyOf(reason, capacity);
+        extraSpacing = copyOf(extraSpacing, capacity);
+        usedWidth = copyOf(usedWidth, capacity);
+        height = copyOf(height, capacity);
+      }
+      end[count] = lineEnd;
+      extraSpacing[count] = lineExtraSpacing;
+      usedWidth[count] = lineUsedWidth;
+      maxWidth = Math.max(maxWidth, lineUsedWidth);
+      count++;
+    }
+
+    private void add(int lineEnd, int lineExtraSpacing, int lineUsedWidth, int nextReason) {
+      add(lineEnd, lineExtraSpacing, lineUsedWidth);
+      reason[count] = nextReason;
+    }
+
+    private void append(Run run, int from, int to) {
+      for (int event = from; event < to; event++) {
+        // reason belongs to the line started after this one ,first line is BREAK_START
+        add(run.end[event], run.extraSpacing[event], run.usedWidth[event], run.nextReason[event]);
+      }
+    }
+  }
+
+  /**
+   * end and width of a line started by every item overflowing into it
+   */
+  private static final class LineEnds {
+
+    final int[] end;
+    final int[] width;
+
+    LineEnds(int count) {
+      end = new int[count];
+      width = new int[count];
+    }
+  }
+
+  /**
+   * line ends produced by flowing items
+   */
+  private static final class Run {
+
+    int count;
+    int width;
+    int[] end = new int[16];
+    int[] nextReason = new int[16];
+    int[] extraSpacing = new int[16];
+    int[] usedWidth = new int[16];
+
+    void add(int lineEnd, int reason, int lineExtraSpacing, int lineUsedWidth) {
+      if (count == end.length) {
+        int capacity = count * 2;
+        end = copyOf(end, capacity);
+        nextReason = copyOf(nextReason, capacity);
+        extraSpacing = copyOf(extraSpacing, capacity);
+        usedWidth = copyOf(usedWidth, capacity);
+      }
+      end[count] = lineEnd;
+      nextReason[count] = reason;
+      extraSpacing[count] = lineExtraSpacing;
+      usedWidth[count] = lineUsedWidth;
+      count++;
+    }
+  }
+
+  private static int[] copyOf(int[] array, int length) {
+    int[] copy = new int[length];
+    System.arraycopy(array, 0, copy, 0, Math.min(array.length, length));
+    return copy;
+  }
+}
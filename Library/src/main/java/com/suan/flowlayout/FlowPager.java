@@ -0,0 +1,190 @@
+package com.suan.flowlayout;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import android.graphics.Rect;
+import android.view.View;
+import android.view.ViewTreeObserver;
+
+/**
+ * function for this class:
+ * feed FlowLayout page by page from a data source ,next page is loaded once the last line is
+ * less than prefetchLines lines below the bottom of viewport
+ *
+ * the check only reads line table of FlowLayout ,and a loaded page is added with
+ * {@link FlowLayout#appendViews(List)} ,so lines before the last one are not flowed again and
+ * cost of a page only depends on its size
+ * only horizontal orientation is supported ,vertical one has no line table to read
+ */
+public class FlowPager<T> {
+
+  public static final int DEFAULT_PREFETCH_LINES = 3;
+
+  public interface DataSource<T> {
+
+    int getPageSize();
+
+    /**
+     * load given page ,callback may be called right away or later on main thread
+     */
+    void loadPage(int page, int pageSize, LoadCallback<T> callback);
+  }
+
+  public interface LoadCallback<T> {
+
+    /**
+     * @param hasMore false if it's the last page
+     */
+    void onPageLoaded(int page, List<T> items, boolean hasMore);
+  }
+
+  public interface ViewBinder<T> {
+
+    View createView(FlowLayout parent, T item);
+  }
+
+  private final FlowLayout layout;
+  private final DataSource<T> dataSource;
+  private final ViewBinder<T> viewBinder;
+  private int prefetchLines = DEFAULT_PREFETCH_LINES;
+  private int nextPage = 0;
+  private boolean loading = false;
+  private boolean hasMore = true;
+  private boolean started = false;
+  /**
+   * increased on stop ,so callback of a request made before is ignored
+   */
+  private int generation = 0;
+  private final Rect visibleRect = new Rect();
+
+  private final ViewTreeObserver.OnScrollChangedListener scrollChangedListener =
+      new ViewTreeObserver.OnScrollChangedListener() {
+        @Override
+        public void onScrollChanged() {
+          checkLoadAhead();
+        }
+      };
+  private final ViewTreeObserver.OnGlobalLayoutListener globalLayoutListener =
+      new ViewTreeObserver.OnGlobalLayoutListener() {
+        @Override
+        public void onGlobalLayout() {
+          checkLoadAhead();
+        }
+      };
+
+  public FlowPager(FlowLayout layout, DataSource<T> dataSource, ViewBinder<T> viewBinder) {
+    if (layout.getOrientation() != FlowLayout.ORIENTATION_HORIZONTAL) {
+      throw new IllegalArgumentException("FlowPager needs horizontal orientation");
+    }
+    this.layout = layout;
+    this.dataSource = dataSource;
+    this.viewBinder = viewBinder;
+  }
+
+  public void setPrefetchLines(int prefetchLines) {
+    this.prefetchLines = prefetchLines;
+  }
+
+  /**
+   * start listening scroll and layout of FlowLayout ,first page is loaded right away
+   */
+  public void start() {
+    if (started) {
+      return;
+    }
+    started = true;
+    ViewTreeObserver observer = layout.getViewTreeObserver();
+    observer.addOnScrollChangedListener(scrollChangedListener);
+    observer.addOnGlobalLayoutListener(globalLayoutListener);
+    checkLoadAhead();
+  }
+
+  /**
+   * stop listening ,page being loaded is dropped
+   */
+  public void stop() {
+    if (!started) {
+      return;
+    }
+    started = false;
+    generation++;
+    loading = false;
+    ViewTreeObserver observer = layout.getViewTreeObserver();
+    observer.removeOnScrollChangedListener(scrollChangedListener);
+    observer.removeGlobalOnLayoutListener(globalLayoutListener);
+  }
+
+  /**
+   * check with the visible part of FlowLayout as viewport
+   */
+  public void checkLoadAhead() {
+    if (layout.getLineCount() == 0) {
+      checkLoadAhead(0);
+    } else if (layout.getLocalVisibleRect(visibleRect)) {
+      checkLoadAhead(visibleRect.bottom);
+    }
+  }
+
+  /**
+   * @param viewportBottom bottom of viewport in FlowLayout coordinate
+   */
+  public void checkLoadAhead(int viewportBottom) {
+    if (!started || loading || !hasMore) {
+      return;
+    }
+    if (layout.getOrientation() != FlowLayout.ORIENTATION_HORIZONTAL) {
+      // no line would ever be below viewport ,pages would be loaded back to back
+      throw new IllegalStateException("FlowPager needs horizontal orientation");
+    }
+    // line table is stale until next layout ,which will check again ,first page needs no lines
+    if (nextPage > 0 && layout.isLayoutRequested()) {
+      return;
+    }
+    int lineCount = layout.getLineCount();
+    int linesBelow = lineCount == 0 ? 0 : lineCount - 1 - layout.getLineForY(viewportBottom);
+    if (linesBelow <= prefetchLines) {
+      loadNextPage();
+    }
+  }
+
+  private void loadNextPage() {
+    loading = true;
+    final int requestGeneration = generation;
+    dataSource.loadPage(nextPage, dataSource.getPageSize(), new LoadCallback<T>() {
+      @Override
+      public void onPageLoaded(int page, List<T> items, boolean more) {
+        if (requestGeneration != generation || page != nextPage) {
+          return;
+        }
+        onPageLoadedInternal(items, more);
+      }
+    });
+  }
+
+  private void onPageLoadedInternal(List<T> items, boolean more) {
+    List<View> children = new ArrayList<View>(items.size());
+    for (T item : items) {
+      children.add(viewBinder.createView(layout, item));
+    }
+    nextPage++;
+    hasMore = more && !items.isEmpty();
+    loading = false;
+    layout.appendViews(children);
+  }
+
+  public boolean isLoading() {
+    return loading;
+  }
+
+  public boolean hasMore() {
+    return hasMore;
+  }
+
+  /**
+   * @return count of pages appended to FlowLayout
+   */
+  public int getLoadedPageCount() {
+    return nextPage;
+  }
+}
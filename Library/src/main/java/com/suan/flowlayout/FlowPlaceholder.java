@@ -0,0 +1,60 @@
+package com.suan.flowlayout;
+
+import android.content.Context;
+import android.view.View;
+import android.view.ViewGroup.LayoutParams;
+
+/**
+ * function for this class:
+ * lightweight child of FlowLayout standing for a view that is not inflated yet
+ *
+ * it takes the hinted size in the flow ,so line breaks and total height are right before the
+ * real view exists ,FlowLayout replaces it by the real view when its line comes near viewport
+ */
+public class FlowPlaceholder extends View {
+
+  public interface Inflater {
+
+    /**
+     * create the real view ,data to bind can be kept in tag of placeholder
+     */
+    View inflate(FlowLayout parent, FlowPlaceholder placeholder);
+  }
+
+  private final Inflater inflater;
+  private final FlowLayout.LayoutParam realLayoutParams;
+
+  FlowPlaceholder(Context context, Inflater inflater, FlowLayout.LayoutParam lp) {
+    super(context);
+    if (lp.width == LayoutParams.WRAP_CONTENT && lp.hintWidth == FlowLayout.LayoutParam.HINT_NONE
+        || lp.height == LayoutParams.WRAP_CONTENT
+        && lp.hintHeight == FlowLayout.LayoutParam.HINT_NONE) {
+      throw new IllegalArgumentException("WRAP_CONTENT placeholder needs a size hint");
+    }
+    this.inflater = inflater;
+    this.realLayoutParams = lp;
+    FlowLayout.LayoutParam placeholderLp = new FlowLayout.LayoutParam(lp);
+    if (lp.width == LayoutParams.WRAP_CONTENT) {
+      placeholderLp.width = lp.hintWidth;
+    }
+    if (lp.height == LayoutParams.WRAP_CONTENT) {
+      placeholderLp.height = lp.hintHeight;
+    }
+    setLayoutParams(placeholderLp);
+  }
+
+  public FlowLayout.LayoutParam getRealLayoutParams() {
+    return realLayoutParams;
+  }
+
+  View inflate(FlowLayout parent) {
+    return inflater.inflate(parent, this);
+  }
+
+  @Override
+  protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+    FlowLayout.LayoutParam lp = (FlowLayout.LayoutParam) getLayoutParams();
+    setMeasuredDimension(getDefaultSize(Math.max(lp.width, 0), widthMeasureSpec),
+        getDefaultSize(Math.max(lp.height, 0), heightMeasureSpec));
+  }
+}
@@ -0,0 +1,91 @@
+package com.suan.flowlayout;
+
+import android.animation.TimeInterpolator;
+import android.graphics.Rect;
+import android.view.View;
+import android.view.animation.DecelerateInterpolator;
+
+/**
+ * function for this class:
+ * animate children of FlowLayout from their old position to the new one after a reflow
+ *
+ * child is laid out at its new position right away ,then translated back to where it was and
+ * animated to zero translation ,so only translation changes during animation and no layout is
+ * requested
+ * children which are off screen both before and after the reflow are not animated
+ */
+public class FlowReflowAnimator {
+
+  public static final long DEFAULT_DURATION = 250;
+
+  private long duration = DEFAULT_DURATION;
+  private TimeInterpolator interpolator = new DecelerateInterpolator();
+  private final Rect visibleRect = new Rect();
+  private boolean visible = false;
+
+  public void setDuration(long duration) {
+    this.duration = duration;
+  }
+
+  public void setInterpolator(TimeInterpolator interpolator) {
+    this.interpolator = interpolator;
+  }
+
+  /**
+   * called once before children of given layout are laid out
+   */
+  void beginLayout(FlowLayout layout) {
+    visible = layout.getLocalVisibleRect(visibleRect);
+  }
+
+  /**
+   * called before child is laid out at new position
+   */
+  void onChildLayout(View child, int left, int top) {
+    if (!visible) {
+      return;
+    }
+    int oldLeft = child.getLeft();
+    int oldTop = child.getTop();
+    int width = child.getWidth();
+    int height = child.getHeight();
+    if (oldLeft == 0 && oldTop == 0 && width == 0 && height == 0) {
+      // never laid out
+      return;
+    }
+    float fromX = oldLeft + child.getTranslationX();
+    float fromY = oldTop + child.getTranslationY();
+    if (fromX == left && fromY == top) {
+      return;
+    }
+    int newRight = left + child.getMeasuredWidth();
+    int newBottom = top + child.getMeasuredHeight();
+    if (!visibleRect.intersects((int) fromX, (int) fromY, (int) fromX + width, (int) fromY + height)
+        && !visibleRect.intersects(left, top, newRight, newBottom)) {
+      return;
+    }
+    child.setTranslationX(fromX - left);
+    child.setTranslationY(fromY - top);
+    animateToLayout(child);
+  }
+
+  /**
+   * animate child from where it's drawn back to its laid out position ,e.g. on drop
+   */
+  void settle(View child) {
+    animateToLayout(child);
+  }
+
+  /**
+   * animate translation of child to zero ,override to drive it another way ,e.g. where there is
+   * no Looper to run animators on
+   */
+  protected void animateToLayout(View child) {
+    child.animate()
+        .translationX(0)
+        .translationY(0)
+        .setDuration(duration)
+        .setInterpolator(interpolator)
+        .start();
+  }
+}
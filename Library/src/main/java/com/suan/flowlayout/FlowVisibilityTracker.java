@@ -0,0 +1,228 @@
+package com.suan.flowlayout;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import android.graphics.Rect;
+import android.view.View;
+import android.view.ViewTreeObserver;
+
+/**
+ * function for this class:
+ * report children of FlowLayout entering and leaving the viewport ,e.g. for impression logging
+ *
+ * a child is visible when at least threshold of its area is inside the viewport ,visible lines are
+ * found by line table of FlowLayout ,and when the viewport only scrolls just the lines which
+ * crossed its top or bottom edge are checked again ,lines in between keep their state
+ *
+ * scroll only marks the tracker dirty ,children are checked once per frame before drawing
+ * only horizontal orientation has a line table ,nothing is reported in vertical one
+ */
+public class FlowVisibilityTracker {
+
+  public static final float DEFAULT_THRESHOLD = 0.5f;
+
+  private static final int LINE_NONE = -1;
+
+  public interface Listener {
+
+    void onChildEnter(View child);
+
+    void onChildExit(View child);
+  }
+
+  private final FlowLayout layout;
+  private final Listener listener;
+  private float threshold = DEFAULT_THRESHOLD;
+  private boolean started = false;
+  private boolean dirty = false;
+
+  private final Set<View> visibleChildren = new HashSet<View>();
+  private final Rect visibleRect = new Rect();
+  private final Rect viewport = new Rect();
+  private int firstLine = LINE_NONE;
+  private int lastLine = LINE_NONE;
+  private int layoutGeneration = -1;
+
+  private final ViewTreeObserver.OnScrollChangedListener scrollChangedListener =
+      new ViewTreeObserver.OnScrollChangedListener() {
+        @Override
+        public void onScrollChanged() {
+          dirty = true;
+        }
+      };
+  private final ViewTreeObserver.OnPreDrawListener preDrawListener =
+      new ViewTreeObserver.OnPreDrawListener() {
+        @Override
+        public boolean onPreDraw() {
+          if (dirty || layoutGeneration != layout.getLayoutGeneration()) {
+            update();
+          }
+          return true;
+        }
+      };
+
+  public FlowVisibilityTracker(FlowLayout layout, Listener listener) {
+    this.layout = layout;
+    this.listener = listener;
+  }
+
+  /**
+   * @param threshold fraction of child area which must be inside viewport ,from 0 to 1
+   */
+  public void setThreshold(float threshold) {
+    this.threshold = threshold;
+  }
+
+  public void start() {
+    if (started) {
+      return;
+    }
+    started = true;
+    dirty = true;
+    ViewTreeObserver observer = layout.getViewTreeObserver();
+    observer.addOnScrollChangedListener(scrollChangedListener);
+    observer.addOnPreDrawListener(preDrawListener);
+  }
+
+  /**
+   * stop listening ,children are forgotten without exit event
+   */
+  public void stop() {
+    if (!started) {
+      return;
+    }
+    started = false;
+    ViewTreeObserver observer = layout.getViewTreeObserver();
+    observer.removeOnScrollChangedListener(scrollChangedListener);
+    observer.removeOnPreDrawListener(preDrawListener);
+    visibleChildren.clear();
+    firstLine = LINE_NONE;
+    lastLine = LINE_NONE;
+    layoutGeneration = -1;
+  }
+
+  /**
+   * check with the visible part of FlowLayout as viewport
+   */
+  public void update() {
+    if (layout.getLocalVisibleRect(visibleRect)) {
+      update(visibleRect.left, visibleRect.top, visibleRect.right, visibleRect.bottom);
+    } else {
+      update(0, 0, 0, 0);
+    }
+  }
+
+  /**
+   * check with given viewport in FlowLayout coordinate
+   */
+  public void update(int left, int top, int right, int bottom) {
+    dirty = false;
+    boolean relayout = layoutGeneration != layout.getLayoutGeneration();
+    boolean horizontalChanged = left != viewport.left || right != viewport.right;
+    layoutGeneration = layout.getLayoutGeneration();
+    viewport.set(left, top, right, bottom);
+
+    int newFirstLine = LINE_NONE;
+    int newLastLine = LINE_NONE;
+    if (layout.getLineCount() > 0 && right > left && bottom > top) {
+      newFirstLine = layout.getLineForY(top);
+      newLastLine = layout.getLineForY(bottom - 1);
+    }
+
+    if (relayout) {
+      // children may have moved to other lines ,check every visible one
+      exitMovedChildren();
+      updateLines(newFirstLine, newLastLine);
+    } else if (firstLine == LINE_NONE || newFirstLine == LINE_NONE || horizontalChanged) {
+      updateLines(firstLine, lastLine);
+      updateLines(newFirstLine, newLastLine);
+    } else {
+      // lines which left the viewport
+      updateLines(firstLine, Math.min(lastLine, newFirstLine - 1));
+      updateLines(Math.max(firstLine, newLastLine + 1), lastLine);
+      // lines which entered the viewport or are still crossing its edge
+      updateLines(newFirstLine, Math.min(newLastLine, firstLine));
+      updateLines(Math.max(newFirstLine, lastLine), newLastLine);
+      updateLines(newFirstLine, newFirstLine);
+      updateLines(newLastLine, newLastLine);
+    }
+    firstLine = newFirstLine;
+    lastLine = newLastLine;
+  }
+
+  private void exitMovedChildren() {
+    if (visibleChildren.isEmpty()) {
+      return;
+    }
+    List<View> exited = new ArrayList<View>();
+    for (View child : visibleChildren) {
+      if (child.getParent() != layout || !isVisible(child)) {
+        exited.add(child);
+      }
+    }
+    for (View child : exited) {
+      visibleChildren.remove(child);
+      listener.onChildExit(child);
+    }
+  }
+
+  private void updateLines(int fromLine, int toLine) {
+    if (fromLine == LINE_NONE) {
+      return;
+    }
+    int lineCount = layout.getLineCount();
+    for (int line = fromLine; line <= toLine && line < lineCount; line++) {
+      int end = Math.min(layout.getLineEnd(line), layout.getChildCount());
+      for (int i = layout.getLineStart(line); i < end; i++) {
+        updateChild(layout.getChildAt(i));
+      }
+    }
+  }
+
+  private void updateChild(View child) {
+    boolean visible = isVisible(child);
+    if (visible == visibleChildren.contains(child)) {
+      return;
+    }
+    if (visible) {
+      visibleChildren.add(child);
+      listener.onChildEnter(child);
+    } else {
+      visibleChildren.remove(child);
+      listener.onChildExit(child);
+    }
+  }
+
+  private boolean isVisible(View child) {
+    if (child.getVisibility() != View.VISIBLE) {
+      return false;
+    }
+    int width = child.getWidth();
+    int height = child.getHeight();
+    if (width <= 0 || height <= 0) {
+      return false;
+    }
+    int visibleWidth = Math.min(child.getRight(), viewport.right)
+        - Math.max(child.getLeft(), viewport.left);
+    int visibleHeight = Math.min(child.getBottom(), viewport.bottom)
+        - Math.max(child.getTop(), viewport.top);
+    if (visibleWidth <= 0 || visibleHeight <= 0) {
+      return false;
+    }
+    return (float) visibleWidth * visibleHeight >= threshold * width * height;
+  }
+
+  /**
+   * @return whether given child is visible in last update
+   */
+  public boolean isChildVisible(View child) {
+    return visibleChildren.contains(child);
+  }
+
+  public int getVisibleChildCount() {
+    return visibleChildren.size();
+  }
+}